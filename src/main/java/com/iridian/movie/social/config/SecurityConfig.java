@@ -6,6 +6,8 @@ import javax.crypto.SecretKey;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -13,7 +15,13 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
+import org.springframework.security.oauth2.server.resource.web.DefaultBearerTokenResolver;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.header.writers.CacheControlHeadersWriter;
+import org.springframework.security.web.header.writers.DelegatingRequestMatcherHeaderWriter;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -25,30 +33,53 @@ import io.jsonwebtoken.security.Keys;
 public class SecurityConfig {
 
     @Bean
-    SecurityFilterChain security(HttpSecurity http) throws Exception {
+    SecurityFilterChain security(HttpSecurity http, Environment environment) throws Exception {
+        // Local TMDB stand-in, only mapped under the tmdb-stub profile
+        boolean tmdbStub = environment.acceptsProfiles(Profiles.of("tmdb-stub"));
         return http
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
-                .authorizeHttpRequests(auth -> auth
-                    // Allow all OPTIONS requests (CORS preflight)
-                    .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
-                    
-                    .requestMatchers(HttpMethod.POST, "/api/auth/login").permitAll()
-                    .requestMatchers(HttpMethod.POST, "/api/auth/signup").permitAll()
-                    .requestMatchers(HttpMethod.POST, "/api/auth/forgot-password").permitAll()
-                    .requestMatchers(HttpMethod.POST, "/api/auth/reset-password").permitAll()
-                    
-                    .requestMatchers(HttpMethod.GET, "/api/share/**").permitAll()
-                    
-                    .requestMatchers("/api/test-email/**").permitAll()
-                    
-                    .anyRequest().authenticated()
-                )
-                .oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()))
+                .authorizeHttpRequests(auth -> {
+                    auth
+                        // Allow all OPTIONS requests (CORS preflight)
+                        .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+
+                        .requestMatchers(HttpMethod.POST, "/api/auth/login").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/auth/signup").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/auth/forgot-password").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/auth/reset-password").permitAll()
+
+                        .requestMatchers(HttpMethod.GET, "/api/share/**").permitAll()
+
+                        .requestMatchers("/api/test-email/**").permitAll();
+
+                    if (tmdbStub) {
+                        auth.requestMatchers(HttpMethod.GET, "/tmdb-stub/**").permitAll();
+                    }
+
+                    auth.anyRequest().authenticated();
+                })
+                // Movie endpoints set their own Cache-Control from the TMDB cache lifetime
+                .headers(headers -> headers
+                    .cacheControl(cacheControl -> cacheControl.disable())
+                    .addHeaderWriter(new DelegatingRequestMatcherHeaderWriter(
+                        new NegatedRequestMatcher(PathPatternRequestMatcher.withDefaults().matcher("/api/movies/**")),
+                        new CacheControlHeadersWriter())))
+                .oauth2ResourceServer(oauth2 -> oauth2
+                    .bearerTokenResolver(tmdbStub ? stubAwareBearerTokenResolver() : new DefaultBearerTokenResolver())
+                    .jwt(Customizer.withDefaults()))
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .build();
     }
 
+    // Calls to the TMDB stand-in carry the TMDB API token, which is not one of our JWTs
+    private BearerTokenResolver stubAwareBearerTokenResolver() {
+        DefaultBearerTokenResolver resolver = new DefaultBearerTokenResolver();
+        return request -> request.getRequestURI().startsWith(request.getContextPath() + "/tmdb-stub/")
+                ? null
+                : resolver.resolve(request);
+    }
+
     @Bean
     CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration cfg = new CorsConfiguration();
@@ -64,7 +95,7 @@ public class SecurityConfig {
         
         cfg.setAllowedHeaders(Arrays.asList("*"));
         
-        cfg.setExposedHeaders(Arrays.asList("Location"));
+        cfg.setExposedHeaders(Arrays.asList("Location", "X-Cache", "ETag"));
         
         cfg.setAllowCredentials(true);
         
@@ -0,0 +1,93 @@
+package com.iridian.movie.social.config;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+
+import com.iridian.movie.social.util.CircuitBreaker;
+import com.iridian.movie.social.util.ConnectionPoolStats;
+import com.iridian.movie.social.util.TokenBucket;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+@Configuration
+public class TMDBClientConfig {
+
+    @Bean
+    CircuitBreaker tmdbCircuitBreaker(
+            @Value("${tmdb.circuit-breaker.window-size:20}") int windowSize,
+            @Value("${tmdb.circuit-breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${tmdb.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+            @Value("${tmdb.circuit-breaker.slow-call-duration:2s}") Duration slowCallDuration,
+            @Value("${tmdb.circuit-breaker.slow-call-rate-threshold:50}") int slowCallRateThreshold,
+            @Value("${tmdb.circuit-breaker.open-duration:30s}") Duration openDuration) {
+        return new CircuitBreaker("tmdb", windowSize, minimumCalls, failureRateThreshold,
+                slowCallDuration, slowCallRateThreshold, openDuration);
+    }
+
+    @Bean
+    TokenBucket tmdbRateLimiter(
+            @Value("${tmdb.rate-limit.permits-per-second:40}") double permitsPerSecond,
+            @Value("${tmdb.rate-limit.burst:20}") int burst,
+            @Value("${tmdb.rate-limit.max-wait:1s}") Duration maxWait,
+            @Value("${tmdb.rate-limit.max-queue:200}") int maxQueue) {
+        return new TokenBucket("tmdb", permitsPerSecond, burst, maxWait, maxQueue);
+    }
+
+    @Bean
+    ConnectionPoolStats tmdbConnectionPoolStats(
+            @Value("${tmdb.http.pool.slow-acquire:100ms}") Duration slowAcquire) {
+        return new ConnectionPoolStats("tmdb", slowAcquire.toNanos());
+    }
+
+    // Idle connections are dropped before TMDB's edge would close them, so a
+    // request never picks up a socket that is already half-closed
+    @Bean(destroyMethod = "dispose")
+    ConnectionProvider tmdbConnectionProvider(ConnectionPoolStats tmdbConnectionPoolStats,
+            @Value("${tmdb.http.pool.max-connections:50}") int maxConnections,
+            @Value("${tmdb.http.pool.pending-acquire-max:200}") int pendingAcquireMax,
+            @Value("${tmdb.http.pool.pending-acquire-timeout:2s}") Duration pendingAcquireTimeout,
+            @Value("${tmdb.http.pool.max-idle-time:20s}") Duration maxIdleTime,
+            @Value("${tmdb.http.pool.max-life-time:5m}") Duration maxLifeTime,
+            @Value("${tmdb.http.pool.eviction-interval:30s}") Duration evictionInterval) {
+        return ConnectionProvider.builder("tmdb")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictionInterval)
+                .lifo()
+                .metrics(true, () -> tmdbConnectionPoolStats)
+                .build();
+    }
+
+    @Bean
+    ClientHttpConnector tmdbHttpConnector(ConnectionProvider tmdbConnectionProvider,
+            ConnectionPoolStats tmdbConnectionPoolStats,
+            @Value("${tmdb.http.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${tmdb.http.read-timeout:5s}") Duration readTimeout,
+            @Value("${tmdb.http.write-timeout:5s}") Duration writeTimeout,
+            @Value("${tmdb.http.response-timeout:4s}") Duration responseTimeout) {
+        HttpClient httpClient = HttpClient.create(tmdbConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(responseTimeout)
+                // Handlers added per acquisition are removed when the connection
+                // goes back to the pool, so they never fire on an idle socket
+                .doOnConnected(connection -> connection
+                        .addHandlerLast(new ReadTimeoutHandler(readTimeout.toMillis(), TimeUnit.MILLISECONDS))
+                        .addHandlerLast(new WriteTimeoutHandler(writeTimeout.toMillis(), TimeUnit.MILLISECONDS)))
+                .doOnRequest((request, connection) -> tmdbConnectionPoolStats.recordAcquire(request.currentContextView()));
+        return new ReactorClientHttpConnector(httpClient);
+    }
+}
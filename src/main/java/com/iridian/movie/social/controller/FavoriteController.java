@@ -7,6 +7,7 @@ import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -23,6 +24,7 @@ import com.iridian.movie.social.model.Favorites;
 import com.iridian.movie.social.model.User;
 import com.iridian.movie.social.repository.FavoriteRepository;
 import com.iridian.movie.social.repository.UserRepository;
+import com.iridian.movie.social.service.EntryOwnerService;
 import com.iridian.movie.social.service.MovieCommentLikeService;
 import com.iridian.movie.social.util.GenreMap;
 
@@ -37,6 +39,9 @@ public class FavoriteController {
     @Autowired(required = false)
     private MovieCommentLikeService likeService;
 
+    @Autowired
+    private EntryOwnerService entryOwners;
+
     public FavoriteController(FavoriteRepository favoriteRepository, UserRepository userRepository) {
         this.favoriteRepository = favoriteRepository;
         this.userRepository = userRepository;
@@ -209,6 +214,7 @@ public class FavoriteController {
     }
 
     @DeleteMapping("/{favoriteId}")
+    @Transactional
     public ResponseEntity<FavoriteFlat> deleteMovieFav(@PathVariable Long favoriteId,
             @RequestParam String userId) {
         Favorites existing = favoriteRepository.findById(favoriteId)
@@ -219,6 +225,7 @@ public class FavoriteController {
         }
 
         favoriteRepository.delete(existing);
+        entryOwners.evict(favoriteId, EntryType.FAVORITE);
         return ResponseEntity.noContent().build();
     }
 
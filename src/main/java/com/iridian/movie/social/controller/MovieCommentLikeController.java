@@ -17,6 +17,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.iridian.movie.social.model.EntryType;
 import com.iridian.movie.social.service.MovieCommentLikeService;
+import com.iridian.movie.social.service.ReactionWriteBehindService;
 
 @RestController
 @RequestMapping("/api")
@@ -54,6 +55,9 @@ public class MovieCommentLikeController {
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", "Invalid entry type: " + entryType));
+        } catch (ReactionWriteBehindService.RejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", e.getMessage()));
@@ -89,6 +93,9 @@ public class MovieCommentLikeController {
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", "Invalid entry type: " + entryType));
+        } catch (ReactionWriteBehindService.RejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", e.getMessage()));
@@ -153,6 +160,9 @@ public class MovieCommentLikeController {
             Map<String, Object> result = likeService.removeLike(entryId, type, userId);
             return ResponseEntity.ok(result);
 
+        } catch (ReactionWriteBehindService.RejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", e.getMessage()));
@@ -199,6 +209,9 @@ public class MovieCommentLikeController {
             result.put("entryType", type.name());
             return ResponseEntity.ok(result);
 
+        } catch (ReactionWriteBehindService.RejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", e.getMessage()));
@@ -1,70 +1,212 @@
 package com.iridian.movie.social.controller;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.iridian.movie.social.dto.TMDBPayload;
+import com.iridian.movie.social.service.DiscoverPoolService;
 import com.iridian.movie.social.service.TMDBService;
+import com.iridian.movie.social.service.UpcomingReleasesService;
+import com.iridian.movie.social.util.CircuitBreaker;
+import com.iridian.movie.social.util.TMDBProjection;
+import com.iridian.movie.social.util.TMDBResponseCache;
+import com.iridian.movie.social.util.TokenBucket;
+
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/api/movies")
 public class MovieController {
 
     private final TMDBService tmdbService;
-
-    public MovieController(TMDBService tmdbService) {
+    private final UpcomingReleasesService upcomingReleases;
+    private final DiscoverPoolService discoverPool;
+    private final boolean passthrough;
+    private final boolean blocking;
+    private final int maxBatchIds;
+
+    public MovieController(TMDBService tmdbService,
+            UpcomingReleasesService upcomingReleases,
+            DiscoverPoolService discoverPool,
+            @Value("${tmdb.response.passthrough:true}") boolean passthrough,
+            @Value("${tmdb.response.blocking:false}") boolean blocking,
+            @Value("${tmdb.details.batch.max-ids:50}") int maxBatchIds) {
         this.tmdbService = tmdbService;
+        this.upcomingReleases = upcomingReleases;
+        this.discoverPool = discoverPool;
+        this.passthrough = passthrough;
+        this.blocking = blocking;
+        this.maxBatchIds = maxBatchIds;
     }
 
     @GetMapping("/search")
-    public ResponseEntity<?> searchMovies(@RequestParam String query) {
-        String result = tmdbService.searchMovies(query);
-        return ResponseEntity.ok(result);
+    public Mono<ResponseEntity<?>> searchMovies(@RequestParam String query,
+            @RequestParam(required = false) String fields,
+            @RequestHeader HttpHeaders requestHeaders) {
+        return respondProjected(tmdbService.searchMoviesAsync(query), fields, requestHeaders);
     }
 
     @GetMapping("/popular")
-    public ResponseEntity<?> getPopularMovies(
-            @RequestParam(required = false) Integer with_genres,
-            @RequestParam(required = false, defaultValue = "1") Integer page) {
+    public Mono<ResponseEntity<?>> getPopularMovies(
+            @RequestParam(required = false) List<Integer> with_genres,
+            @RequestParam(required = false, defaultValue = "1") Integer page,
+            @RequestParam(required = false) String fields,
+            @RequestHeader HttpHeaders requestHeaders) {
 
-        String result;
+        Mono<TMDBPayload> result;
 
-        if (with_genres != null) {
-            result = tmdbService.getMoviesByGenre(with_genres, page);
+        if (with_genres != null && !with_genres.isEmpty()) {
+            result = discoverPool.getMoviesByGenres(with_genres, page);
         } else {
-            result = tmdbService.getPopularMovies(page);
+            result = tmdbService.getPopularMoviesAsync(page);
         }
 
-        return ResponseEntity.ok(result);
+        return respondProjected(result, fields, requestHeaders);
     }
 
     @GetMapping("/upcoming")
-    public ResponseEntity<?> getUpcomingMovies(
+    public Mono<ResponseEntity<?>> getUpcomingMovies(
             @RequestParam(required = false) Integer with_genres,
-            @RequestParam(required = false, defaultValue = "1") Integer page) {
+            @RequestParam(required = false, defaultValue = "1") Integer page,
+            @RequestParam(required = false) String fields,
+            @RequestHeader HttpHeaders requestHeaders) {
+        return respondProjected(upcomingReleases.getUpcoming(with_genres, page), fields, requestHeaders);
+    }
+
+    @GetMapping("/movieDetails")
+    public Mono<ResponseEntity<?>> getMovieDetails(@RequestParam Number id,
+            @RequestHeader HttpHeaders requestHeaders) {
+        return respond(tmdbService.getMovieDetailsAsync(id), requestHeaders);
+    }
 
-        String result;
+    @GetMapping("/details")
+    public Mono<ResponseEntity<?>> getMovieDetailsBatch(@RequestParam List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > maxBatchIds) {
+            return Mono.just(ResponseEntity.badRequest()
+                    .body(Map.of("error", "Provide between 1 and " + maxBatchIds + " movie ids")));
+        }
+        return tmdbService.getMovieDetailsBatchAsync(ids)
+                .map(body -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .contentLength(body.length)
+                        .body(body));
+    }
 
-        if (with_genres != null) {
-            result = tmdbService.getUpcomingMoviesByGenre(with_genres, page);
+    @GetMapping("/genres")
+    public Mono<ResponseEntity<?>> getGenres(@RequestHeader HttpHeaders requestHeaders) {
+        return respond(tmdbService.getGenresAsync(), requestHeaders);
+    }
+
+    private Mono<ResponseEntity<?>> respondProjected(Mono<TMDBPayload> payload, String fields,
+            HttpHeaders requestHeaders) {
+        Set<String> projection;
+        try {
+            projection = TMDBProjection.parseFields(fields);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of(
+                    "error", e.getMessage(),
+                    "allowedFields", TMDBProjection.ALLOWED_FIELDS)));
+        }
+        return respond(payload.map(result -> tmdbService.project(result, projection)), requestHeaders);
+    }
+
+    private Mono<ResponseEntity<?>> respond(Mono<TMDBPayload> payload, HttpHeaders requestHeaders) {
+        Mono<ResponseEntity<?>> response = payload
+                .<ResponseEntity<?>>map(result -> toResponse(result, requestHeaders))
+                .onErrorResume(CircuitBreaker.OpenException.class, e -> Mono.just(
+                        ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .body(Map.of("error", "Movie data is temporarily unavailable"))))
+                .onErrorResume(TokenBucket.RejectedException.class, e -> Mono.just(
+                        ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, String.valueOf(
+                                        Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000)))
+                                .body(Map.of("error", "Too many movie requests, please retry shortly"))));
+        // The old synchronous path, kept for load comparisons: the servlet thread waits
+        // out the whole TMDB round trip
+        return blocking ? Mono.justOrEmpty(response.block()) : response;
+    }
+
+    // Passthrough writes the UTF-8 bytes TMDB sent us without decoding them into a String,
+    // or the gzip copy made when the payload was cached if the client accepts it
+    private ResponseEntity<?> toResponse(TMDBPayload result, HttpHeaders requestHeaders) {
+        TMDBResponseCache.Entry entry = result.getEntry();
+        boolean gzip = passthrough && entry.isCompressed() && acceptsGzip(requestHeaders);
+        String etag = gzip ? entry.getGzipETag() : entry.getETag();
+        if (etag != null && matchesAny(requestHeaders.getIfNoneMatch(), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl(entry))
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .header("X-Cache", result.getCacheStatus())
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header("X-Cache", result.getCacheStatus());
+        if (etag != null) {
+            response.eTag(etag)
+                    .cacheControl(cacheControl(entry))
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING);
         } else {
-            result = tmdbService.getUpcomingMovies(page);
+            response.cacheControl(CacheControl.noStore());
         }
 
-        return ResponseEntity.ok(result);
+        if (!passthrough) {
+            return response.body(result.asString());
+        }
+        byte[] body = gzip ? entry.getGzipBody() : result.getBody();
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(body.length)
+                .body(body);
     }
 
-    @GetMapping("/movieDetails")
-    public ResponseEntity<?> getMovieDetails(@RequestParam Number id) {
-        String result = tmdbService.getMovieDetails(id);
-        return ResponseEntity.ok(result);
+    // Browsers and shared caches may reuse the body for as long as our own copy stays fresh
+    private static CacheControl cacheControl(TMDBResponseCache.Entry entry) {
+        long remaining = entry.getRemainingMillis(System.currentTimeMillis());
+        return CacheControl.maxAge(Duration.ofSeconds(remaining / 1000)).cachePublic();
     }
 
-    @GetMapping("/genres")
-    public ResponseEntity<?> getGenres() {
-        String result = tmdbService.getGenres();
-        return ResponseEntity.ok(result);
+    // If-None-Match uses weak comparison, so W/"x" matches "x"
+    private static boolean matchesAny(List<String> candidates, String etag) {
+        for (String candidate : candidates) {
+            String tag = candidate.startsWith("W/") ? candidate.substring(2) : candidate;
+            if (tag.equals(etag) || tag.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(HttpHeaders requestHeaders) {
+        for (String header : requestHeaders.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String coding : header.split(",")) {
+                String[] parts = coding.trim().split(";");
+                String name = parts[0].trim();
+                if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                    continue;
+                }
+                boolean refused = parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?");
+                return !refused;
+            }
+        }
+        return false;
     }
 }
@@ -4,6 +4,8 @@ import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,7 +14,12 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.iridian.movie.social.model.EntryType;
+import com.iridian.movie.social.service.EntryOwnerService;
 import com.iridian.movie.social.service.MovieCommentLikeService;
+import com.iridian.movie.social.service.ReactionCountService;
+import com.iridian.movie.social.service.ReactionWriteBehindService;
+import com.iridian.movie.social.service.SimilarUsersService;
+import com.iridian.movie.social.service.TrendingService;
 
 @RestController
 @RequestMapping("/api/stats")
@@ -20,6 +27,21 @@ public class StatsController {
     
     @Autowired
     private MovieCommentLikeService likeService;
+
+    @Autowired
+    private ReactionCountService reactionCounts;
+
+    @Autowired
+    private ReactionWriteBehindService reactionWriteBehind;
+
+    @Autowired
+    private EntryOwnerService entryOwners;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private SimilarUsersService similarUsers;
     
  
     @GetMapping("/user/{userId}")
@@ -32,7 +54,11 @@ public class StatsController {
     public ResponseEntity<List<Map<String, Object>>> getTrending(
             @RequestParam(defaultValue = "FAVORITE") String type,
             @RequestParam(defaultValue = "10") int limit) {
-        return ResponseEntity.ok(likeService.getTrendingContent(type, limit));
+        try {
+            return ResponseEntity.ok(likeService.getTrendingContent(type, limit));
+        } catch (TrendingService.NotReadyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
     }
     
 
@@ -56,7 +82,33 @@ public class StatsController {
     @GetMapping("/user/{userId}/similar")
     public ResponseEntity<List<Map<String, Object>>> getSimilarUsers(
             @PathVariable String userId,
-            @RequestParam(defaultValue = "5") int limit) {
-        return ResponseEntity.ok(likeService.findSimilarUsers(userId, limit));
+            @RequestParam(defaultValue = "5") int limit,
+            @RequestParam(defaultValue = "overlap") String metric) {
+        return ResponseEntity.ok(likeService.findSimilarUsers(userId, limit, metric));
+    }
+
+    @GetMapping("/reaction-counts")
+    public ResponseEntity<Map<String, Object>> getReactionCountStats() {
+        return ResponseEntity.ok(reactionCounts.getStats());
+    }
+
+    @GetMapping("/reaction-writes")
+    public ResponseEntity<Map<String, Object>> getReactionWriteStats() {
+        return ResponseEntity.ok(reactionWriteBehind.getStats());
+    }
+
+    @GetMapping("/entry-owners")
+    public ResponseEntity<Map<String, Object>> getEntryOwnerStats() {
+        return ResponseEntity.ok(entryOwners.getStats());
+    }
+
+    @GetMapping("/trending/engine")
+    public ResponseEntity<Map<String, Object>> getTrendingEngineStats() {
+        return ResponseEntity.ok(trendingService.getStats());
+    }
+
+    @GetMapping("/similar-users/engine")
+    public ResponseEntity<Map<String, Object>> getSimilarUsersEngineStats() {
+        return ResponseEntity.ok(similarUsers.getStats());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package com.iridian.movie.social.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.iridian.movie.social.service.DiscoverPoolService;
+import com.iridian.movie.social.service.TMDBPrewarmService;
+import com.iridian.movie.social.service.TMDBService;
+import com.iridian.movie.social.service.UpcomingReleasesService;
+
+@RestController
+@RequestMapping("/api/tmdb")
+public class TMDBStatsController {
+
+    private final TMDBService tmdbService;
+    private final UpcomingReleasesService upcomingReleases;
+    private final DiscoverPoolService discoverPool;
+
+    @Autowired(required = false)
+    private TMDBPrewarmService prewarmService;
+
+    public TMDBStatsController(TMDBService tmdbService, UpcomingReleasesService upcomingReleases,
+            DiscoverPoolService discoverPool) {
+        this.tmdbService = tmdbService;
+        this.upcomingReleases = upcomingReleases;
+        this.discoverPool = discoverPool;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("cache", tmdbService.getCacheStats());
+        stats.put("singleFlight", tmdbService.getSingleFlightStats());
+        stats.put("resilience", tmdbService.getResilienceStats());
+        stats.put("catalog", tmdbService.getCatalogStats());
+        stats.put("projection", tmdbService.getProjectionStats());
+        stats.put("searchIndex", tmdbService.getSearchIndexStats());
+        stats.put("upcomingWindow", upcomingReleases.getStats());
+        stats.put("discoverPool", discoverPool.getStats());
+        if (prewarmService != null) {
+            stats.put("prewarm", prewarmService.getStats());
+        }
+        return ResponseEntity.ok(stats);
+    }
+}
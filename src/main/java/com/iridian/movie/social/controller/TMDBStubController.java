@@ -0,0 +1,196 @@
+package com.iridian.movie.social.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Stand-in for the TMDB API, served from recorded fixtures under
+ * resources/tmdb-stub. Only active with the "tmdb-stub" profile, which also
+ * points tmdb.api.url here. Latency, 5xx and 429 rates are configurable so
+ * load tests can exercise the caching and resilience paths without TMDB.
+ */
+@RestController
+@Profile("tmdb-stub")
+@RequestMapping("/tmdb-stub/3")
+public class TMDBStubController {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectNode discoverFixture;
+    private final ObjectNode detailsFixture;
+    private final byte[] genresFixture;
+    private final Duration latency;
+    private final Duration jitter;
+    private final double errorRate;
+    private final double rateLimitRate;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong injectedRateLimits = new AtomicLong();
+
+    public TMDBStubController(ObjectMapper objectMapper,
+            @Value("${tmdb.stub.latency:80ms}") Duration latency,
+            @Value("${tmdb.stub.jitter:40ms}") Duration jitter,
+            @Value("${tmdb.stub.error-rate:0.0}") double errorRate,
+            @Value("${tmdb.stub.rate-limit-rate:0.0}") double rateLimitRate) throws IOException {
+        this.objectMapper = objectMapper;
+        this.discoverFixture = (ObjectNode) readFixture("discover-movie.json");
+        this.detailsFixture = (ObjectNode) readFixture("movie-details.json");
+        this.genresFixture = objectMapper.writeValueAsBytes(readFixture("genre-list.json"));
+        this.latency = latency;
+        this.jitter = jitter;
+        this.errorRate = errorRate;
+        this.rateLimitRate = rateLimitRate;
+    }
+
+    @GetMapping("/discover/movie")
+    public Mono<ResponseEntity<?>> discover(
+            @RequestParam(required = false, defaultValue = "1") int page,
+            @RequestParam(required = false) List<Integer> with_genres) {
+        return respond(() -> {
+            ArrayNode results = objectMapper.createArrayNode();
+            for (JsonNode movie : discoverFixture.path("results")) {
+                if (with_genres == null || hasAllGenres(movie, with_genres)) {
+                    results.add(forPage(movie, page));
+                }
+            }
+            return listPage(page, results);
+        });
+    }
+
+    @GetMapping("/search/movie")
+    public Mono<ResponseEntity<?>> search(@RequestParam String query) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        return respond(() -> {
+            ArrayNode results = objectMapper.createArrayNode();
+            for (JsonNode movie : discoverFixture.path("results")) {
+                if (movie.path("title").asText().toLowerCase(Locale.ROOT).contains(needle)) {
+                    results.add(movie);
+                }
+            }
+            return listPage(1, results);
+        });
+    }
+
+    @GetMapping("/movie/{id}")
+    public Mono<ResponseEntity<?>> details(@PathVariable long id) {
+        return respond(() -> {
+            ObjectNode movie = detailsFixture.deepCopy();
+            movie.put("id", id);
+            for (JsonNode known : discoverFixture.path("results")) {
+                if (known.path("id").asLong() == id) {
+                    movie.put("title", known.path("title").asText());
+                    movie.put("original_title", known.path("title").asText());
+                    movie.put("poster_path", known.path("poster_path").asText());
+                    movie.put("release_date", known.path("release_date").asText());
+                }
+            }
+            return objectMapper.writeValueAsBytes(movie);
+        });
+    }
+
+    @GetMapping("/genre/movie/list")
+    public Mono<ResponseEntity<?>> genres() {
+        return respond(() -> genresFixture);
+    }
+
+    @GetMapping("/__stats")
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("requests", requests.get());
+        stats.put("injectedErrors", injectedErrors.get());
+        stats.put("injectedRateLimits", injectedRateLimits.get());
+        return stats;
+    }
+
+    private interface Body {
+        byte[] render() throws IOException;
+    }
+
+    private Mono<ResponseEntity<?>> respond(Body body) {
+        requests.incrementAndGet();
+        long delayMillis = latency.toMillis()
+                + (jitter.isZero() ? 0 : ThreadLocalRandom.current().nextLong(jitter.toMillis() + 1));
+
+        return Mono.delay(Duration.ofMillis(delayMillis)).map(tick -> {
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < rateLimitRate) {
+                injectedRateLimits.incrementAndGet();
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(Map.of("status_code", 25, "status_message", "Your request count is over the allowed limit."));
+            }
+            if (roll < rateLimitRate + errorRate) {
+                injectedErrors.incrementAndGet();
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(Map.of("status_code", 11, "status_message", "Internal error: injected by stub."));
+            }
+            try {
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body.render());
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not render stub response", e);
+            }
+        });
+    }
+
+    private byte[] listPage(int page, ArrayNode results) throws IOException {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("page", page);
+        response.set("results", results);
+        response.put("total_pages", results.isEmpty() ? 0 : discoverFixture.path("total_pages").asInt());
+        response.put("total_results", results.isEmpty() ? 0 : discoverFixture.path("total_results").asInt());
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    // Later pages reuse the fixture rows under ids of their own, so pools and
+    // indexes built from several pages do not collapse into one page of movies
+    private static JsonNode forPage(JsonNode movie, int page) {
+        if (page <= 1) {
+            return movie;
+        }
+        ObjectNode copy = movie.deepCopy();
+        copy.put("id", movie.path("id").asLong() + page * 10_000_000L);
+        // Keeps every page strictly less popular than the one before it
+        copy.put("popularity", movie.path("popularity").asDouble() * Math.pow(0.2, page - 1));
+        return copy;
+    }
+
+    private static boolean hasAllGenres(JsonNode movie, List<Integer> genreIds) {
+        List<Integer> genres = new ArrayList<>();
+        movie.path("genre_ids").forEach(genre -> genres.add(genre.asInt()));
+        return genres.containsAll(genreIds);
+    }
+
+    private JsonNode readFixture(String name) throws IOException {
+        try (InputStream in = new ClassPathResource("tmdb-stub/" + name).getInputStream()) {
+            return objectMapper.readTree(in);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -25,6 +26,7 @@ import com.iridian.movie.social.model.Top10;
 import com.iridian.movie.social.model.User;
 import com.iridian.movie.social.repository.Top10Repository;
 import com.iridian.movie.social.repository.UserRepository;
+import com.iridian.movie.social.service.EntryOwnerService;
 import com.iridian.movie.social.service.MovieCommentLikeService;
 import com.iridian.movie.social.util.GenreMap;
 
@@ -38,6 +40,9 @@ public class Top10Controller {
     @Autowired(required = false)
     private MovieCommentLikeService likeService;
 
+    @Autowired
+    private EntryOwnerService entryOwners;
+
     public Top10Controller(Top10Repository top10Repository, UserRepository userRepository) {
         this.top10Repository = top10Repository;
         this.userRepository = userRepository;
@@ -136,6 +141,7 @@ public class Top10Controller {
     }
 
     @DeleteMapping("/{top10Id}")
+    @Transactional
     public ResponseEntity<Top10Flat> deleteMovieTop10(@PathVariable Long top10Id,
             @RequestParam String userId) {
         Top10 existing = top10Repository.findById(top10Id)
@@ -146,6 +152,7 @@ public class Top10Controller {
         }
 
         top10Repository.delete(existing);
+        entryOwners.evict(top10Id, EntryType.TOP10);
         return ResponseEntity.noContent().build();
     }
 
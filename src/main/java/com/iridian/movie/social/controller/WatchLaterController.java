@@ -7,6 +7,7 @@ import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -23,6 +24,7 @@ import com.iridian.movie.social.model.User;
 import com.iridian.movie.social.model.WatchLater;
 import com.iridian.movie.social.repository.UserRepository;
 import com.iridian.movie.social.repository.WatchLaterRepository;
+import com.iridian.movie.social.service.EntryOwnerService;
 import com.iridian.movie.social.service.MovieCommentLikeService;
 import com.iridian.movie.social.util.GenreMap;
 
@@ -36,6 +38,9 @@ public class WatchLaterController {
     @Autowired(required = false)
     private MovieCommentLikeService likeService;
 
+    @Autowired
+    private EntryOwnerService entryOwners;
+
     public WatchLaterController(WatchLaterRepository watchLaterRepository, UserRepository userRepository) {
         this.watchLaterRepository = watchLaterRepository;
         this.userRepository = userRepository;
@@ -122,6 +127,7 @@ public class WatchLaterController {
     }
 
     @DeleteMapping("/{watchLaterId}")
+    @Transactional
     public ResponseEntity<WatchLaterFlat> deleteMovieWatchLater(@PathVariable Long watchLaterId,
             @RequestParam String userId) {
         WatchLater existing = watchLaterRepository.findById(watchLaterId)
@@ -132,6 +138,7 @@ public class WatchLaterController {
         }
 
         watchLaterRepository.delete(existing);
+        entryOwners.evict(watchLaterId, EntryType.WATCH_LATER);
         return ResponseEntity.noContent().build();
     }
 
@@ -9,6 +9,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -25,6 +26,7 @@ import com.iridian.movie.social.model.User;
 import com.iridian.movie.social.model.Watched;
 import com.iridian.movie.social.repository.UserRepository;
 import com.iridian.movie.social.repository.WatchedRepository;
+import com.iridian.movie.social.service.EntryOwnerService;
 import com.iridian.movie.social.service.MovieCommentLikeService;
 import com.iridian.movie.social.util.GenreMap;
 
@@ -38,6 +40,9 @@ public class WatchedController {
     @Autowired(required = false)
     private MovieCommentLikeService likeService;
 
+    @Autowired
+    private EntryOwnerService entryOwners;
+
     public WatchedController(WatchedRepository watchedRepository, UserRepository userRepository) {
         this.watchedRepository = watchedRepository;
         this.userRepository = userRepository;
@@ -157,6 +162,7 @@ public class WatchedController {
     }
 
     @DeleteMapping("/{watchedId}")
+    @Transactional
     public ResponseEntity<Void> deleteWatched(@PathVariable Long watchedId,
             @RequestParam String userId) {
         Watched existing = watchedRepository.findById(watchedId)
@@ -167,6 +173,7 @@ public class WatchedController {
         }
 
         watchedRepository.delete(existing);
+        entryOwners.evict(watchedId, EntryType.WATCHED);
         return ResponseEntity.noContent().build();
     }
 
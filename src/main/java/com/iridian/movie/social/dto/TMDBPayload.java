@@ -0,0 +1,41 @@
+package com.iridian.movie.social.dto;
+
+import java.nio.charset.StandardCharsets;
+
+import com.iridian.movie.social.util.TMDBResponseCache;
+
+public class TMDBPayload {
+
+    public static final String HIT = "HIT";
+    public static final String MISS = "MISS";
+    public static final String STALE = "STALE";
+    public static final String LOCAL = "LOCAL";
+
+    private final TMDBResponseCache.Entry entry;
+    private final String cacheStatus;
+
+    public TMDBPayload(TMDBResponseCache.Entry entry, String cacheStatus) {
+        this.entry = entry;
+        this.cacheStatus = cacheStatus;
+    }
+
+    public TMDBResponseCache.Entry getEntry() {
+        return entry;
+    }
+
+    public byte[] getBody() {
+        return entry.getBody();
+    }
+
+    public String getCacheStatus() {
+        return cacheStatus;
+    }
+
+    public boolean isStale() {
+        return STALE.equals(cacheStatus);
+    }
+
+    public String asString() {
+        return new String(entry.getBody(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,56 @@
+package com.iridian.movie.social.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "movie_catalog")
+public class MovieCatalogEntry {
+
+    @Id
+    @Column(name = "movie_id", nullable = false)
+    private Long movieId;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "fetched_at", nullable = false)
+    private LocalDateTime fetchedAt;
+
+    public MovieCatalogEntry() {
+    }
+
+    public MovieCatalogEntry(Long movieId, String payload, LocalDateTime fetchedAt) {
+        this.movieId = movieId;
+        this.payload = payload;
+        this.fetchedAt = fetchedAt;
+    }
+
+    public Long getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(Long movieId) {
+        this.movieId = movieId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public LocalDateTime getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public void setFetchedAt(LocalDateTime fetchedAt) {
+        this.fetchedAt = fetchedAt;
+    }
+}
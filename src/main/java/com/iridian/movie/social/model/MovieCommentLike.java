@@ -9,6 +9,8 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 
@@ -17,7 +19,10 @@ import jakarta.persistence.UniqueConstraint;
         uniqueConstraints = @UniqueConstraint(
                 name = "unique_user_movie_entry",
                 columnNames = {"user_id", "movie_entry_id", "entry_type"}
-        ))
+        ),
+        // Covers the per-entry like/dislike aggregate without touching the table
+        indexes = @Index(name = "idx_movie_comment_likes_entry",
+                columnList = "entry_type, movie_entry_id, is_like, user_id"))
 public class MovieCommentLike {
 
     @Id
@@ -40,9 +45,17 @@ public class MovieCommentLike {
     @Column(name = "is_like", nullable = false)
     private Boolean isLike;
 
-    @Column(name = "created_at", insertable = false, updatable = false)
+    // Dates the reaction for the trending window, so it is set on every insert
+    @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
     // Constructors
     public MovieCommentLike() {
     }
@@ -0,0 +1,88 @@
+package com.iridian.movie.social.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+// Running like/dislike totals per entry, kept in step with movie_comment_likes
+@Entity
+@Table(name = "reaction_counts",
+        uniqueConstraints = @UniqueConstraint(
+                name = "unique_reaction_count_entry",
+                columnNames = {"movie_entry_id", "entry_type"}
+        ))
+public class ReactionCount {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "movie_entry_id", nullable = false)
+    private Long movieEntryId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 50)
+    private EntryType entryType;
+
+    @Column(name = "likes", nullable = false)
+    private long likes;
+
+    @Column(name = "dislikes", nullable = false)
+    private long dislikes;
+
+    public ReactionCount() {
+    }
+
+    public ReactionCount(Long movieEntryId, EntryType entryType, long likes, long dislikes) {
+        this.movieEntryId = movieEntryId;
+        this.entryType = entryType;
+        this.likes = likes;
+        this.dislikes = dislikes;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getMovieEntryId() {
+        return movieEntryId;
+    }
+
+    public void setMovieEntryId(Long movieEntryId) {
+        this.movieEntryId = movieEntryId;
+    }
+
+    public EntryType getEntryType() {
+        return entryType;
+    }
+
+    public void setEntryType(EntryType entryType) {
+        this.entryType = entryType;
+    }
+
+    public long getLikes() {
+        return likes;
+    }
+
+    public void setLikes(long likes) {
+        this.likes = likes;
+    }
+
+    public long getDislikes() {
+        return dislikes;
+    }
+
+    public void setDislikes(long dislikes) {
+        this.dislikes = dislikes;
+    }
+}
@@ -6,6 +6,8 @@ import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.iridian.movie.social.model.Favorites;
@@ -20,4 +22,15 @@ public interface FavoriteRepository extends JpaRepository<Favorites, Long> {
     long countByUserUserId(String userId);
 
     Optional<Favorites> findByUser_UserIdAndMovieId(String userId, Long movieId);
+
+    @Query("SELECT e.movieId, e.title, e.posterPath, e.publicScore, e.releasedDate, e.movieDescription, e.genreIds, "
+            + "e.id FROM Favorites e WHERE e.id > :afterId")
+    List<Object[]> findSearchableMoviesAfter(@Param("afterId") Long afterId);
+
+    // Reads the user_id column only; no User join and no entity to hydrate
+    @Query("SELECT e.user.userId FROM Favorites e WHERE e.id = :id")
+    Optional<String> findOwnerIdById(@Param("id") Long id);
+
+    @Query("SELECT e.id, e.title, e.movieId, e.posterPath, e.user.username FROM Favorites e WHERE e.id IN :ids")
+    List<Object[]> findTrendingDetails(@Param("ids") List<Long> ids);
 }
@@ -0,0 +1,10 @@
+package com.iridian.movie.social.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.iridian.movie.social.model.MovieCatalogEntry;
+
+@Repository
+public interface MovieCatalogRepository extends JpaRepository<MovieCatalogEntry, Long> {
+}
@@ -1,16 +1,23 @@
 package com.iridian.movie.social.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.iridian.movie.social.model.EntryType;
 import com.iridian.movie.social.model.MovieCommentLike;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface MovieCommentLikeRepository extends JpaRepository<MovieCommentLike, Long> {
 
@@ -18,6 +25,14 @@ public interface MovieCommentLikeRepository extends JpaRepository<MovieCommentLi
     Optional<MovieCommentLike> findByUserIdAndMovieEntryIdAndEntryType(
             String userId, Long movieEntryId, EntryType entryType);
 
+    // 1b. Same, row-locked, so a concurrent toggle cannot change it between read and write
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM MovieCommentLike m WHERE m.userId = :userId "
+            + "AND m.movieEntryId = :entryId AND m.entryType = :entryType")
+    Optional<MovieCommentLike> findForUpdate(@Param("userId") String userId,
+            @Param("entryId") Long entryId,
+            @Param("entryType") EntryType entryType);
+
     // 2. Count likes for an entry (using isLike in @Query is OK)
     @Query("SELECT COUNT(m) FROM MovieCommentLike m WHERE m.movieEntryId = :entryId "
             + "AND m.entryType = :entryType AND m.isLike = true")
@@ -35,6 +50,20 @@ public interface MovieCommentLikeRepository extends JpaRepository<MovieCommentLi
             @Param("entryIds") List<Long> entryIds,
             @Param("entryType") EntryType entryType);
 
+    // 4b. Like/dislike counts per entry plus the viewer's own reaction, in one pass.
+    // Returns (movieEntryId, likes, dislikes, viewerStatus) with viewerStatus
+    // 1 = liked, -1 = disliked, 0 = no reaction (or no viewer)
+    @Query("SELECT m.movieEntryId, "
+            + "COUNT(CASE WHEN m.isLike = true THEN 1 END), "
+            + "COUNT(CASE WHEN m.isLike = false THEN 1 END), "
+            + "SUM(CASE WHEN m.userId = :viewerId THEN (CASE WHEN m.isLike = true THEN 1 ELSE -1 END) ELSE 0 END) "
+            + "FROM MovieCommentLike m WHERE m.movieEntryId IN :entryIds AND m.entryType = :entryType "
+            + "GROUP BY m.movieEntryId")
+    List<Object[]> aggregateLikesForEntries(
+            @Param("entryIds") List<Long> entryIds,
+            @Param("entryType") EntryType entryType,
+            @Param("viewerId") String viewerId);
+
     // 5. Get user's likes for multiple entries
     @Query("SELECT m FROM MovieCommentLike m WHERE m.userId = :userId "
             + "AND m.movieEntryId IN :entryIds AND m.entryType = :entryType")
@@ -43,6 +72,57 @@ public interface MovieCommentLikeRepository extends JpaRepository<MovieCommentLi
             @Param("entryIds") List<Long> entryIds,
             @Param("entryType") EntryType entryType);
 
+    // 5b. Toggle a reaction and maintain reaction_counts in one PostgreSQL statement.
+    // Same reaction again removes it, the opposite one switches it, otherwise it is added;
+    // a double click that lost the race to an identical request changes nothing.
+    // Returns at most one row: (action, likeDelta, dislikeDelta, likes, dislikes, created_at
+    // of the reaction row, which a switch keeps)
+    @Query(value = "WITH removed AS ("
+            + "  DELETE FROM movie_comment_likes"
+            + "  WHERE user_id = :userId AND movie_entry_id = :entryId AND entry_type = :entryType"
+            + "    AND is_like = :isLike"
+            + "  RETURNING is_like, created_at"
+            + "), upserted AS ("
+            + "  INSERT INTO movie_comment_likes (user_id, movie_entry_id, entry_type, movie_owner_id, is_like, created_at)"
+            + "  SELECT :userId, :entryId, :entryType, :ownerId, :isLike, LOCALTIMESTAMP"
+            + "  WHERE NOT EXISTS (SELECT 1 FROM movie_comment_likes"
+            + "    WHERE user_id = :userId AND movie_entry_id = :entryId AND entry_type = :entryType"
+            + "      AND is_like = :isLike)"
+            + "  ON CONFLICT (user_id, movie_entry_id, entry_type)"
+            + "  DO UPDATE SET is_like = EXCLUDED.is_like"
+            + "  WHERE movie_comment_likes.is_like <> EXCLUDED.is_like"
+            + "  RETURNING (xmax = 0) AS inserted, created_at"
+            + "), delta AS ("
+            + "  SELECT 'removed' AS action,"
+            + "    CASE WHEN :isLike THEN -1 ELSE 0 END AS likes,"
+            + "    CASE WHEN :isLike THEN 0 ELSE -1 END AS dislikes,"
+            + "    created_at"
+            + "  FROM removed"
+            + "  UNION ALL"
+            + "  SELECT CASE WHEN inserted THEN 'added' ELSE 'switched' END,"
+            + "    CASE WHEN :isLike THEN 1 WHEN inserted THEN 0 ELSE -1 END,"
+            + "    CASE WHEN NOT :isLike THEN 1 WHEN inserted THEN 0 ELSE -1 END,"
+            + "    created_at"
+            + "  FROM upserted"
+            + "), counted AS ("
+            + "  INSERT INTO reaction_counts (movie_entry_id, entry_type, likes, dislikes)"
+            + "  SELECT :entryId, :entryType, likes, dislikes FROM delta"
+            + "  ON CONFLICT (movie_entry_id, entry_type)"
+            + "  DO UPDATE SET likes = reaction_counts.likes + EXCLUDED.likes,"
+            + "    dislikes = reaction_counts.dislikes + EXCLUDED.dislikes"
+            + "  RETURNING likes, dislikes"
+            + ") "
+            + "SELECT d.action, d.likes, d.dislikes, c.likes, c.dislikes, d.created_at FROM delta d CROSS JOIN counted c "
+            + "UNION ALL "
+            + "SELECT 'unchanged', 0, 0, r.likes, r.dislikes, NULL FROM reaction_counts r "
+            + "WHERE r.movie_entry_id = :entryId AND r.entry_type = :entryType "
+            + "AND NOT EXISTS (SELECT 1 FROM delta)", nativeQuery = true)
+    List<Object[]> toggleReaction(@Param("userId") String userId,
+            @Param("entryId") Long entryId,
+            @Param("entryType") String entryType,
+            @Param("ownerId") String ownerId,
+            @Param("isLike") boolean isLike);
+
     // ===== STATISTICS & ANALYTICS (KEEP THESE) =====
     // 6. Count total likes received by a user
     @Query("SELECT COUNT(m) FROM MovieCommentLike m WHERE m.movieOwnerId = :ownerId AND m.isLike = true")
@@ -61,6 +141,11 @@ public interface MovieCommentLikeRepository extends JpaRepository<MovieCommentLi
             + "LIMIT :limit", nativeQuery = true)
     List<Object[]> findMostLikedEntries(@Param("entryType") String entryType, @Param("limit") int limit);
 
+    // Seeds the in-memory trending window at startup
+    @Query("SELECT m.movieEntryId, m.entryType, m.createdAt FROM MovieCommentLike m "
+            + "WHERE m.isLike = true AND m.createdAt >= :since AND m.createdAt < :until")
+    List<Object[]> findLikesCreatedBetween(@Param("since") LocalDateTime since, @Param("until") LocalDateTime until);
+
     // 9. Get all activity for a user's content
     @Query("SELECT m FROM MovieCommentLike m WHERE m.movieOwnerId = :ownerId ORDER BY m.createdAt DESC")
     List<MovieCommentLike> findByMovieOwnerId(@Param("ownerId") String ownerId);
@@ -93,6 +178,13 @@ public interface MovieCommentLikeRepository extends JpaRepository<MovieCommentLi
             + "GROUP BY m.entryType")
     List<Object[]> getUserLikeStatsByType(@Param("ownerId") String ownerId);
 
+    // 14b. Like/dislike totals for every entry that has reactions (counter reconciliation)
+    @Query("SELECT m.movieEntryId, m.entryType, "
+            + "COUNT(CASE WHEN m.isLike = true THEN 1 END), "
+            + "COUNT(CASE WHEN m.isLike = false THEN 1 END) "
+            + "FROM MovieCommentLike m GROUP BY m.movieEntryId, m.entryType")
+    List<Object[]> countReactionsByEntry();
+
     // 15. Find users with similar taste
     @Query("SELECT m2.userId, COUNT(m2.movieEntryId) as commonLikes "
             + "FROM MovieCommentLike m1 "
@@ -105,6 +197,12 @@ public interface MovieCommentLikeRepository extends JpaRepository<MovieCommentLi
             + "LIMIT :limit")
     List<Object[]> findUsersWithSimilarTaste(@Param("userId1") String userId1, @Param("limit") int limit);
 
+    // 15b. Every like as {userId, entryType, entryId}, fetched in chunks (similar-users index rebuild);
+    // the caller must hold a transaction open and close the stream
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "10000"))
+    @Query("SELECT m.userId, m.entryType, m.movieEntryId FROM MovieCommentLike m WHERE m.isLike = true")
+    Stream<Object[]> streamLikes();
+
     // ===== REPLACEMENT METHODS FOR THE PROBLEMATIC ONES =====
     // Replace findByUserIdAndIsLike with this:
     @Query("SELECT m FROM MovieCommentLike m WHERE m.userId = :userId AND m.isLike = :isLike")
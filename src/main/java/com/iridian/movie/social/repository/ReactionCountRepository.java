@@ -0,0 +1,42 @@
+package com.iridian.movie.social.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.iridian.movie.social.model.EntryType;
+import com.iridian.movie.social.model.ReactionCount;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface ReactionCountRepository extends JpaRepository<ReactionCount, Long> {
+
+    Optional<ReactionCount> findByMovieEntryIdAndEntryType(Long movieEntryId, EntryType entryType);
+
+    List<ReactionCount> findByEntryTypeAndMovieEntryIdIn(EntryType entryType, List<Long> movieEntryIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ReactionCount r WHERE r.movieEntryId = :entryId AND r.entryType = :entryType")
+    Optional<ReactionCount> findForUpdate(@Param("entryId") Long entryId, @Param("entryType") EntryType entryType);
+
+    // Relative update, so concurrent reactions on the same entry serialize on the row lock
+    // instead of overwriting each other's totals
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ReactionCount r SET r.likes = r.likes + :likes, r.dislikes = r.dislikes + :dislikes "
+            + "WHERE r.movieEntryId = :entryId AND r.entryType = :entryType")
+    int addToCounts(@Param("entryId") Long entryId,
+            @Param("entryType") EntryType entryType,
+            @Param("likes") long likes,
+            @Param("dislikes") long dislikes);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM ReactionCount r WHERE r.movieEntryId = :entryId AND r.entryType = :entryType")
+    int deleteCounts(@Param("entryId") Long entryId, @Param("entryType") EntryType entryType);
+}
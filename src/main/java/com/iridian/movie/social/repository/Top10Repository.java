@@ -4,6 +4,8 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.iridian.movie.social.model.Top10;
@@ -17,4 +19,11 @@ public interface Top10Repository extends JpaRepository<Top10, Long> {
 
     List<Top10> findByUserUserIdOrderByRankAsc(String userId);
 
+    @Query("SELECT e.movieId, e.title, e.posterPath, e.publicScore, e.releasedDate, e.movieDescription, e.genreIds, "
+            + "e.id FROM Top10 e WHERE e.id > :afterId")
+    List<Object[]> findSearchableMoviesAfter(@Param("afterId") Long afterId);
+
+    @Query("SELECT e.user.userId FROM Top10 e WHERE e.id = :id")
+    Optional<String> findOwnerIdById(@Param("id") Long id);
+
 }
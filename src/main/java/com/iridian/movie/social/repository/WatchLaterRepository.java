@@ -6,6 +6,8 @@ import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.iridian.movie.social.model.WatchLater;
@@ -20,4 +22,11 @@ public interface WatchLaterRepository extends JpaRepository<WatchLater, Long> {
     long countByUserUserId(String userId);
 
     Optional<WatchLater> findByUserUserIdAndMovieId(String userId, Long movieId);
+
+    @Query("SELECT e.movieId, e.title, e.posterPath, e.publicScore, e.releasedDate, e.movieDescription, e.genreIds, "
+            + "e.watchLaterId FROM WatchLater e WHERE e.watchLaterId > :afterId")
+    List<Object[]> findSearchableMoviesAfter(@Param("afterId") Long afterId);
+
+    @Query("SELECT e.user.userId FROM WatchLater e WHERE e.watchLaterId = :id")
+    Optional<String> findOwnerIdById(@Param("id") Long id);
 }
@@ -6,6 +6,8 @@ import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.iridian.movie.social.model.Watched;
@@ -20,4 +22,14 @@ public interface WatchedRepository extends JpaRepository<Watched, Long> {
     long countByUserUserId(String userId);
 
     Optional<Watched> findByUser_UserIdAndMovieId(String userId, Long movieId);
+
+    @Query("SELECT e.movieId, e.title, e.posterPath, e.publicScore, e.releasedDate, e.movieDescription, e.genreIds, "
+            + "e.watchedId FROM Watched e WHERE e.watchedId > :afterId")
+    List<Object[]> findSearchableMoviesAfter(@Param("afterId") Long afterId);
+
+    @Query("SELECT e.user.userId FROM Watched e WHERE e.watchedId = :id")
+    Optional<String> findOwnerIdById(@Param("id") Long id);
+
+    @Query("SELECT e.watchedId, e.title, e.movieId, e.user.username FROM Watched e WHERE e.watchedId IN :ids")
+    List<Object[]> findTrendingDetails(@Param("ids") List<Long> ids);
 }
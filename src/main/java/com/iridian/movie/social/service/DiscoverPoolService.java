@@ -0,0 +1,226 @@
+package com.iridian.movie.social.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.iridian.movie.social.dto.TMDBPayload;
+import com.iridian.movie.social.util.TMDBResponseCache;
+import com.iridian.movie.social.util.TMDBResultPage;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Holds the top pages of TMDB's popular list in columnar form (ids, popularity,
+ * one bitset per genre) and answers with_genres queries by intersecting bitsets.
+ *
+ * Because the pool is a prefix of the popularity ordering, the first k matches in
+ * the pool are exactly TMDB's first k matches for the same genres. A page is only
+ * served locally when the pool has enough matches to fill it; otherwise TMDB answers.
+ * Only the results come from the pool: unless it holds the whole list, total_pages and
+ * total_results are TMDB's own, read from its first page for the same genres.
+ */
+@Service
+public class DiscoverPoolService {
+
+    private final TMDBService tmdbService;
+    private final TMDBResponseCache cache;
+    private final boolean enabled;
+    private final int poolPages;
+    private final int pageSize;
+    private final int concurrency;
+    private final Duration refreshInterval;
+
+    private volatile Pool pool;
+    private final AtomicBoolean loading = new AtomicBoolean();
+
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong localPages = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public DiscoverPoolService(TMDBService tmdbService,
+            TMDBResponseCache cache,
+            @Value("${tmdb.discover.pool.enabled:false}") boolean enabled,
+            @Value("${tmdb.discover.pool.pages:25}") int poolPages,
+            @Value("${tmdb.discover.pool.page-size:20}") int pageSize,
+            @Value("${tmdb.discover.pool.concurrency:4}") int concurrency,
+            @Value("${tmdb.discover.pool.refresh-interval:30m}") Duration refreshInterval) {
+        this.tmdbService = tmdbService;
+        this.cache = cache;
+        this.enabled = enabled;
+        this.poolPages = Math.max(1, poolPages);
+        this.pageSize = Math.max(1, pageSize);
+        this.concurrency = Math.max(1, concurrency);
+        this.refreshInterval = refreshInterval;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Mono<TMDBPayload> getMoviesByGenres(List<Integer> genreIds, Integer page) {
+        int pageNumber = page != null && page > 0 ? page : 1;
+        Pool current = pool;
+        if (!enabled || current == null || genreIds.isEmpty()) {
+            fallbacks.incrementAndGet();
+            return tmdbService.getMoviesByGenresAsync(genreIds, pageNumber);
+        }
+
+        TreeSet<Integer> genres = new TreeSet<>(genreIds);
+        BitSet matches = current.matching(genres);
+        int count = matches.cardinality();
+        if (!current.complete && count < pageNumber * pageSize) {
+            fallbacks.incrementAndGet();
+            return tmdbService.getMoviesByGenresAsync(genreIds, pageNumber);
+        }
+
+        // Rendered pages live in the response cache until the next pool refresh,
+        // so they get an ETag and a gzip copy like any other payload
+        String key = "discover-pool/" + current.loadedAt + "?genres="
+                + genres.stream().map(String::valueOf).collect(Collectors.joining(",")) + "&page=" + pageNumber;
+        TMDBResponseCache.Entry cached = cache.get(key);
+        if (cached != null) {
+            localPages.incrementAndGet();
+            return Mono.just(new TMDBPayload(cached, TMDBPayload.HIT));
+        }
+        if (current.complete) {
+            localPages.incrementAndGet();
+            return Mono.just(render(key, current, matches, pageNumber, (count + pageSize - 1) / pageSize, count));
+        }
+        // Page 1 is usually in the response cache already, so this rarely costs a TMDB call
+        return tmdbService.getMoviesByGenresAsync(genreIds, 1)
+                .map(first -> TMDBResultPage.readTotals(first.getBody()))
+                .map(totals -> {
+                    localPages.incrementAndGet();
+                    return render(key, current, matches, pageNumber, totals.getTotalPages(), totals.getTotalResults());
+                })
+                .onErrorResume(error -> {
+                    fallbacks.incrementAndGet();
+                    return tmdbService.getMoviesByGenresAsync(genreIds, pageNumber);
+                });
+    }
+
+    @Scheduled(initialDelayString = "${tmdb.discover.pool.initial-delay:15s}",
+            fixedDelayString = "${tmdb.discover.pool.refresh-interval:30m}")
+    public void refresh() {
+        if (!enabled || !loading.compareAndSet(false, true)) {
+            return;
+        }
+        Flux.range(1, poolPages)
+                .flatMapSequential(page -> tmdbService.getDiscoverPoolPage(page)
+                        .map(payload -> TMDBResultPage.parse(payload.getBody())), concurrency)
+                .collectList()
+                .map(pages -> Pool.build(TMDBResultPage.merge(pages), pages.get(0).getTotalPages() <= poolPages))
+                .doFinally(signal -> loading.set(false))
+                .subscribe(
+                        loaded -> {
+                            pool = loaded;
+                            loads.incrementAndGet();
+                        },
+                        error -> {
+                            // Keep answering from the previous pool, if any
+                            loadFailures.incrementAndGet();
+                            System.err.println("Discover pool refresh failed: " + error.getMessage());
+                        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        Pool current = pool;
+        stats.put("enabled", enabled);
+        stats.put("movies", current != null ? current.ids.length : 0);
+        stats.put("genres", current != null ? current.genres.size() : 0);
+        stats.put("complete", current != null && current.complete);
+        stats.put("popularityCutoff", current != null && current.ids.length > 0
+                ? current.popularity[current.ids.length - 1] : 0.0);
+        stats.put("loadedAt", current != null ? current.loadedAt : 0);
+        stats.put("loads", loads.get());
+        stats.put("loadFailures", loadFailures.get());
+        stats.put("localPages", localPages.get());
+        stats.put("fallbacks", fallbacks.get());
+        return stats;
+    }
+
+    private TMDBPayload render(String key, Pool current, BitSet matches, int page, int totalPages,
+            int totalResults) {
+        List<byte[]> results = new ArrayList<>(pageSize);
+        int skip = (page - 1) * pageSize;
+        for (int row = matches.nextSetBit(0); row >= 0 && results.size() < pageSize; row = matches.nextSetBit(row + 1)) {
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            results.add(current.json[row]);
+        }
+        byte[] body = TMDBResultPage.render(page, results, totalPages, totalResults);
+        return new TMDBPayload(cache.put(key, body, refreshInterval), TMDBPayload.LOCAL);
+    }
+
+    private static final class Pool {
+
+        // Row i of every column describes the same movie; rows are in popularity order
+        final long[] ids;
+        final double[] popularity;
+        final byte[][] json;
+        final Map<Integer, BitSet> genres;
+        final boolean complete;
+        final long loadedAt;
+
+        private Pool(long[] ids, double[] popularity, byte[][] json, Map<Integer, BitSet> genres, boolean complete) {
+            this.ids = ids;
+            this.popularity = popularity;
+            this.json = json;
+            this.genres = genres;
+            this.complete = complete;
+            this.loadedAt = System.currentTimeMillis();
+        }
+
+        static Pool build(List<TMDBResultPage.Result> results, boolean complete) {
+            int size = results.size();
+            long[] ids = new long[size];
+            double[] popularity = new double[size];
+            byte[][] json = new byte[size][];
+            Map<Integer, BitSet> genres = new HashMap<>();
+            for (int row = 0; row < size; row++) {
+                TMDBResultPage.Result result = results.get(row);
+                ids[row] = result.getId();
+                popularity[row] = result.getPopularity();
+                json[row] = result.getJson();
+                for (int genreId : result.getGenreIds()) {
+                    genres.computeIfAbsent(genreId, g -> new BitSet(size)).set(row);
+                }
+            }
+            return new Pool(ids, popularity, json, genres, complete);
+        }
+
+        // TMDB treats comma-separated with_genres as AND, so intersect
+        BitSet matching(Iterable<Integer> genreIds) {
+            BitSet matches = null;
+            for (Integer genreId : genreIds) {
+                BitSet rows = genres.get(genreId);
+                if (rows == null) {
+                    return new BitSet();
+                }
+                if (matches == null) {
+                    matches = (BitSet) rows.clone();
+                } else {
+                    matches.and(rows);
+                }
+            }
+            return matches != null ? matches : new BitSet();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.iridian.movie.social.service;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.iridian.movie.social.model.EntryType;
+import com.iridian.movie.social.repository.FavoriteRepository;
+import com.iridian.movie.social.repository.Top10Repository;
+import com.iridian.movie.social.repository.WatchLaterRepository;
+import com.iridian.movie.social.repository.WatchedRepository;
+import com.iridian.movie.social.util.AfterCommit;
+
+/**
+ * Resolves who owns a favorite, watched, top 10 or watch-later entry, which every
+ * reaction needs. Owners are read with an id-only projection and cached per
+ * EntryType, since each entry table has its own id sequence.
+ *
+ * An entry never changes owner, so cached owners only go away when the entry is
+ * deleted or the cache is full. Past max-entries per type an arbitrary tenth is
+ * dropped; there is no recency tracking to keep the hot path a single map read.
+ * Missing entries are not cached, and neither is an owner whose load raced a delete
+ * of any entry of the same type.
+ */
+@Service
+public class EntryOwnerService {
+
+    private final FavoriteRepository favoriteRepository;
+    private final WatchedRepository watchedRepository;
+    private final Top10Repository top10Repository;
+    private final WatchLaterRepository watchLaterRepository;
+    private final boolean enabled;
+    private final int maxEntries;
+
+    private final Map<EntryType, ConcurrentHashMap<Long, String>> owners = new EnumMap<>(EntryType.class);
+    private final Map<EntryType, AtomicLong> deletions = new EnumMap<>(EntryType.class);
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public EntryOwnerService(FavoriteRepository favoriteRepository,
+            WatchedRepository watchedRepository,
+            Top10Repository top10Repository,
+            WatchLaterRepository watchLaterRepository,
+            @Value("${reactions.owners.cache.enabled:true}") boolean enabled,
+            @Value("${reactions.owners.cache.max-entries:100000}") int maxEntries) {
+        this.favoriteRepository = favoriteRepository;
+        this.watchedRepository = watchedRepository;
+        this.top10Repository = top10Repository;
+        this.watchLaterRepository = watchLaterRepository;
+        this.enabled = enabled;
+        this.maxEntries = Math.max(16, maxEntries);
+        for (EntryType type : EntryType.values()) {
+            owners.put(type, new ConcurrentHashMap<>());
+            deletions.put(type, new AtomicLong());
+        }
+    }
+
+    // Returns null when the entry does not exist
+    public String getOwnerId(Long entryId, EntryType entryType) {
+        if (!enabled) {
+            return load(entryId, entryType);
+        }
+        ConcurrentHashMap<Long, String> cached = owners.get(entryType);
+        String ownerId = cached.get(entryId);
+        if (ownerId != null) {
+            hits.increment();
+            return ownerId;
+        }
+        misses.increment();
+        AtomicLong deleted = deletions.get(entryType);
+        long deletedBefore = deleted.get();
+        ownerId = load(entryId, entryType);
+        if (ownerId != null) {
+            cached.put(entryId, ownerId);
+            // A delete that committed during the load may have evicted before this put
+            if (deleted.get() != deletedBefore) {
+                cached.remove(entryId, ownerId);
+            }
+            if (cached.size() > maxEntries) {
+                evict(cached);
+            }
+        }
+        return ownerId;
+    }
+
+    // Call inside the transaction that deletes the entry; dropped once it commits, so a
+    // reaction cannot cache the owner again from a row the delete has not removed yet
+    public void evict(Long entryId, EntryType entryType) {
+        AfterCommit.run(() -> {
+            deletions.get(entryType).incrementAndGet();
+            owners.get(entryType).remove(entryId);
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Integer> entries = new HashMap<>();
+        owners.forEach((type, cached) -> entries.put(type.name(), cached.size()));
+        stats.put("enabled", enabled);
+        stats.put("entries", entries);
+        stats.put("maxEntriesPerType", maxEntries);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private String load(Long entryId, EntryType entryType) {
+        Optional<String> ownerId;
+        switch (entryType) {
+            case FAVORITE:
+                ownerId = favoriteRepository.findOwnerIdById(entryId);
+                break;
+            case WATCHED:
+                ownerId = watchedRepository.findOwnerIdById(entryId);
+                break;
+            case TOP10:
+                ownerId = top10Repository.findOwnerIdById(entryId);
+                break;
+            case WATCH_LATER:
+                ownerId = watchLaterRepository.findOwnerIdById(entryId);
+                break;
+            default:
+                ownerId = Optional.empty();
+        }
+        return ownerId.orElse(null);
+    }
+
+    private void evict(ConcurrentHashMap<Long, String> cached) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int target = maxEntries - maxEntries / 10;
+            Iterator<Long> ids = cached.keySet().iterator();
+            while (cached.size() > target && ids.hasNext()) {
+                ids.next();
+                ids.remove();
+                evictions.incrementAndGet();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.iridian.movie.social.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.iridian.movie.social.model.MovieCatalogEntry;
+import com.iridian.movie.social.repository.MovieCatalogRepository;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@Service
+public class MovieCatalogService {
+
+    private final MovieCatalogRepository catalogRepository;
+    private final boolean enabled;
+    private final Duration freshness;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong writeFailures = new AtomicLong();
+
+    public MovieCatalogService(MovieCatalogRepository catalogRepository,
+            @Value("${tmdb.catalog.enabled:true}") boolean enabled,
+            @Value("${tmdb.catalog.freshness:7d}") Duration freshness) {
+        this.catalogRepository = catalogRepository;
+        this.enabled = enabled;
+        this.freshness = freshness;
+    }
+
+    public Mono<MovieCatalogEntry> find(Long movieId) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> catalogRepository.findById(movieId).orElse(null))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnNext(entry -> {
+                    hits.incrementAndGet();
+                    if (!isFresh(entry)) {
+                        staleHits.incrementAndGet();
+                    }
+                })
+                .switchIfEmpty(Mono.fromRunnable(misses::incrementAndGet))
+                .onErrorResume(error -> {
+                    System.err.println("Movie catalog lookup failed for " + movieId + ": " + error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    public boolean isFresh(MovieCatalogEntry entry) {
+        return entry.getFetchedAt().isAfter(LocalDateTime.now().minus(freshness));
+    }
+
+    public void store(Long movieId, byte[] body) {
+        if (!enabled) {
+            return;
+        }
+        Mono.fromRunnable(() -> catalogRepository.save(new MovieCatalogEntry(
+                movieId, new String(body, StandardCharsets.UTF_8), LocalDateTime.now())))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(ignored -> {
+                }, error -> {
+                    writeFailures.incrementAndGet();
+                    System.err.println("Movie catalog write failed for " + movieId + ": " + error.getMessage());
+                }, writes::incrementAndGet);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        stats.put("enabled", enabled);
+        stats.put("hits", hitCount);
+        stats.put("staleHits", staleHits.get());
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("writes", writes.get());
+        stats.put("writeFailures", writeFailures.get());
+        if (enabled) {
+            stats.put("size", catalogRepository.count());
+        }
+        return stats;
+    }
+}
@@ -1,24 +1,36 @@
 package com.iridian.movie.social.service;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import javax.sql.DataSource;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.iridian.movie.social.dto.MovieEntryDTO;
 import com.iridian.movie.social.model.EntryType;
 import com.iridian.movie.social.model.MovieCommentLike;
 import com.iridian.movie.social.repository.FavoriteRepository;
 import com.iridian.movie.social.repository.MovieCommentLikeRepository;
-import com.iridian.movie.social.repository.Top10Repository;
-import com.iridian.movie.social.repository.WatchLaterRepository;
 import com.iridian.movie.social.repository.WatchedRepository;
+import com.iridian.movie.social.util.LikeSimilarityIndex;
+
+import jakarta.annotation.PostConstruct;
 
 @Service
 @Transactional
@@ -33,11 +45,45 @@ public class MovieCommentLikeService {
     @Autowired(required = false)
     private WatchedRepository watchedRepository;
 
-    @Autowired(required = false)
-    private Top10Repository top10Repository;
+    @Autowired
+    private ReactionCountService reactionCounts;
 
-    @Autowired(required = false)
-    private WatchLaterRepository watchLaterRepository;
+    @Autowired
+    private EntryOwnerService entryOwners;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private ReactionWriteBehindService writeBehind;
+
+    @Autowired
+    private SimilarUsersService similarUsers;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${reactions.toggle.single-statement:true}")
+    private boolean singleStatementToggle;
+
+    private boolean postgres;
+
+    private static final int TOGGLE_ATTEMPTS = 3;
+
+    // The single-statement toggle is PostgreSQL SQL. Other databases (H2 in local runs
+    // and load tests), or reactions.toggle.single-statement=false, use the read-then-write
+    // toggle, which is plain JPA and serializes on the entry's reaction_counts row
+    @PostConstruct
+    void detectDatabase() {
+        try (Connection connection = dataSource.getConnection()) {
+            postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            System.err.println("Could not detect database for reaction toggles: " + e.getMessage());
+        }
+    }
 
     public Map<Long, Map<String, Object>> getBatchLikeData(List<Long> entryIds,
             EntryType entryType,
@@ -56,37 +102,60 @@ public class MovieCommentLikeService {
             result.put(entryId, data);
         }
 
-        List<MovieCommentLike> allLikes = likeRepository
-                .findByMovieEntryIdsAndType(entryIds, entryType);
-
-        for (MovieCommentLike like : allLikes) {
-            Map<String, Object> entryData = result.get(like.getMovieEntryId());
-            if (like.getIsLike()) {
-                entryData.put("likes", ((Long) entryData.get("likes")) + 1);
-            } else {
-                entryData.put("dislikes", ((Long) entryData.get("dislikes")) + 1);
+        if (reactionCounts.isReady()) {
+            for (Map.Entry<Long, long[]> counts : reactionCounts.getCounts(entryIds, entryType).entrySet()) {
+                Map<String, Object> entryData = result.get(counts.getKey());
+                entryData.put("likes", counts.getValue()[0]);
+                entryData.put("dislikes", counts.getValue()[1]);
             }
+            if (viewerId != null && !viewerId.isEmpty()) {
+                getUserReactionsForMultipleEntries(viewerId, entryIds, entryType)
+                        .forEach((entryId, status) -> result.get(entryId).put("userStatus", status));
+            }
+            overlayUnsaved(result, entryType, viewerId);
+            return result;
         }
 
-        if (viewerId != null && !viewerId.isEmpty()) {
-            List<MovieCommentLike> userLikes = likeRepository
-                    .findUserLikesForEntries(viewerId, entryIds, entryType);
-
-            for (MovieCommentLike userLike : userLikes) {
-                Map<String, Object> entryData = result.get(userLike.getMovieEntryId());
-                entryData.put("userStatus", userLike.getIsLike() ? "liked" : "disliked");
+        // Counted in the database; a popular entry would otherwise load every reaction row
+        List<Object[]> rows = likeRepository.aggregateLikesForEntries(entryIds, entryType,
+                viewerId != null && !viewerId.isEmpty() ? viewerId : null);
+
+        for (Object[] row : rows) {
+            Map<String, Object> entryData = result.get(((Number) row[0]).longValue());
+            entryData.put("likes", ((Number) row[1]).longValue());
+            entryData.put("dislikes", ((Number) row[2]).longValue());
+            int viewerStatus = row[3] != null ? ((Number) row[3]).intValue() : 0;
+            if (viewerStatus != 0) {
+                entryData.put("userStatus", viewerStatus > 0 ? "liked" : "disliked");
             }
         }
 
+        overlayUnsaved(result, entryType, viewerId);
         return result;
     }
 
+    // Write-behind reactions that are acknowledged but not flushed yet
+    private void overlayUnsaved(Map<Long, Map<String, Object>> result, EntryType entryType, String viewerId) {
+        if (!writeBehind.isEnabled()) {
+            return;
+        }
+        result.forEach((entryId, entryData) -> {
+            long[] unsaved = writeBehind.unflushedCounts(entryId, entryType);
+            entryData.put("likes", (Long) entryData.get("likes") + unsaved[0]);
+            entryData.put("dislikes", (Long) entryData.get("dislikes") + unsaved[1]);
+        });
+        writeBehind.pendingReactions(viewerId, result.keySet(), entryType)
+                .forEach((entryId, isLike) -> result.get(entryId).put("userStatus", status(isLike)));
+    }
+
+    // Each toggle path opens its own transaction; see inRetriedTransaction
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Map<String, Object> toggleLike(Long movieEntryId, String entryTypeStr,
             String currentUserId, boolean isLike) {
 
         EntryType entryType = EntryType.valueOf(entryTypeStr.toUpperCase());
 
-        String movieOwnerId = getEntryOwner(movieEntryId, entryType);
+        String movieOwnerId = entryOwners.getOwnerId(movieEntryId, entryType);
         if (movieOwnerId == null) {
             throw new RuntimeException("Movie entry not found with ID: " + movieEntryId + " and type: " + entryType);
         }
@@ -95,20 +164,43 @@ public class MovieCommentLikeService {
             throw new RuntimeException("You cannot like your own " + entryType.toString().toLowerCase());
         }
 
+        if (writeBehind.isEnabled()) {
+            return toggleWriteBehind(movieEntryId, entryType, currentUserId, movieOwnerId, isLike);
+        }
+
+        if (singleStatementToggle && postgres && reactionCounts.isEnabled()) {
+            return transactionTemplate.execute(status ->
+                    toggleInOneStatement(movieEntryId, entryType, currentUserId, movieOwnerId, isLike));
+        }
+
+        return inRetriedTransaction(() ->
+                toggleReadThenWrite(movieEntryId, entryType, currentUserId, movieOwnerId, isLike));
+    }
+
+    private Map<String, Object> toggleReadThenWrite(Long movieEntryId, EntryType entryType,
+            String currentUserId, String movieOwnerId, boolean isLike) {
+        reactionCounts.lock(movieEntryId, entryType);
         Optional<MovieCommentLike> existing = likeRepository
-                .findByUserIdAndMovieEntryIdAndEntryType(currentUserId, movieEntryId, entryType);
+                .findForUpdate(currentUserId, movieEntryId, entryType);
 
         Map<String, Object> response = new HashMap<>();
+        long[] counts;
 
         if (existing.isPresent()) {
             MovieCommentLike reaction = existing.get();
 
             if (reaction.getIsLike() == isLike) {
                 likeRepository.delete(reaction);
+                counts = reactionCounts.apply(movieEntryId, entryType, isLike ? -1 : 0, isLike ? 0 : -1);
+                trendingService.changed(movieEntryId, entryType, isLike ? -1 : 0, reaction.getCreatedAt());
+                similarUsers.changed(currentUserId, movieEntryId, entryType, false);
                 response.put("action", "removed");
             } else {
                 reaction.setIsLike(isLike);
                 likeRepository.save(reaction);
+                counts = reactionCounts.apply(movieEntryId, entryType, isLike ? 1 : -1, isLike ? -1 : 1);
+                trendingService.changed(movieEntryId, entryType, isLike ? 1 : -1, reaction.getCreatedAt());
+                similarUsers.changed(currentUserId, movieEntryId, entryType, isLike);
                 response.put("action", "switched");
             }
         } else {
@@ -120,31 +212,127 @@ public class MovieCommentLikeService {
                     isLike
             );
             likeRepository.save(newLike);
+            counts = reactionCounts.apply(movieEntryId, entryType, isLike ? 1 : 0, isLike ? 0 : 1);
+            trendingService.changed(movieEntryId, entryType, isLike ? 1 : 0, newLike.getCreatedAt());
+            similarUsers.changed(currentUserId, movieEntryId, entryType, isLike);
             response.put("action", "added");
         }
 
-        long likes = likeRepository.countLikes(movieEntryId, entryType);
-        long dislikes = likeRepository.countDislikes(movieEntryId, entryType);
-        response.put("likes", likes);
-        response.put("dislikes", dislikes);
+        response.put("likes", counts[0]);
+        response.put("dislikes", counts[1]);
         response.put("entryId", movieEntryId);
         response.put("entryType", entryType.toString());
 
         return response;
     }
 
+    // The first two reactions on an entry can both create its reaction_counts row; the
+    // loser fails on the unique constraint, is rolled back, and on the next attempt
+    // waits on the winner's row like any later reaction
+    private Map<String, Object> inRetriedTransaction(Supplier<Map<String, Object>> change) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> change.get());
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == TOGGLE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // One round trip for the reaction and its counters, and no unique-constraint
+    // failures when the same user double-clicks
+    private Map<String, Object> toggleInOneStatement(Long movieEntryId, EntryType entryType,
+            String currentUserId, String movieOwnerId, boolean isLike) {
+        List<Object[]> rows = likeRepository.toggleReaction(currentUserId, movieEntryId,
+                entryType.name(), movieOwnerId, isLike);
+
+        String action = "unchanged";
+        long[] counts = {0, 0};
+        if (!rows.isEmpty()) {
+            Object[] row = rows.get(0);
+            action = (String) row[0];
+            int likeDelta = ((Number) row[1]).intValue();
+            reactionCounts.applied(movieEntryId, entryType, likeDelta, ((Number) row[2]).longValue());
+            if (likeDelta != 0) {
+                trendingService.changed(movieEntryId, entryType, likeDelta, toLocalDateTime(row[5]));
+                similarUsers.changed(currentUserId, movieEntryId, entryType, likeDelta > 0);
+            }
+            counts = new long[]{((Number) row[3]).longValue(), ((Number) row[4]).longValue()};
+        }
+        if (!reactionCounts.isReady()) {
+            counts = reactionCounts.getCounts(movieEntryId, entryType);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("action", action);
+        response.put("likes", counts[0]);
+        response.put("dislikes", counts[1]);
+        response.put("entryId", movieEntryId);
+        response.put("entryType", entryType.toString());
+        return response;
+    }
+
+    // Acknowledged right away; the row change is written by the next write-behind flush
+    private Map<String, Object> toggleWriteBehind(Long movieEntryId, EntryType entryType,
+            String currentUserId, String movieOwnerId, boolean isLike) {
+        ReactionWriteBehindService.Change change = writeBehind.change(currentUserId, movieEntryId, entryType,
+                movieOwnerId, () -> storedReaction(currentUserId, movieEntryId, entryType),
+                current -> current != null && current == isLike ? null : isLike);
+
+        String action;
+        if (change.previous() == null) {
+            action = "added";
+        } else if (change.current() == null) {
+            action = "removed";
+        } else {
+            action = "switched";
+        }
+
+        long[] counts = currentCounts(movieEntryId, entryType);
+        Map<String, Object> response = new HashMap<>();
+        response.put("action", action);
+        response.put("likes", counts[0]);
+        response.put("dislikes", counts[1]);
+        response.put("entryId", movieEntryId);
+        response.put("entryType", entryType.toString());
+        return response;
+    }
+
+    private MovieCommentLike storedReaction(String userId, Long entryId, EntryType entryType) {
+        return likeRepository.findByUserIdAndMovieEntryIdAndEntryType(userId, entryId, entryType).orElse(null);
+    }
+
+    private long[] currentCounts(Long entryId, EntryType entryType) {
+        long[] counts = reactionCounts.getCounts(entryId, entryType);
+        if (writeBehind.isEnabled()) {
+            long[] unsaved = writeBehind.unflushedCounts(entryId, entryType);
+            counts = new long[]{counts[0] + unsaved[0], counts[1] + unsaved[1]};
+        }
+        return counts;
+    }
+
+    private static String status(Boolean isLike) {
+        return isLike == null ? null : isLike ? "liked" : "disliked";
+    }
+
     public Map<String, Object> getLikeData(Long entryId, EntryType entryType, String currentUserId) {
         Map<String, Object> data = new HashMap<>();
 
-        long likes = likeRepository.countLikes(entryId, entryType);
-        long dislikes = likeRepository.countDislikes(entryId, entryType);
+        long[] counts = currentCounts(entryId, entryType);
 
-        data.put("likes", likes);
-        data.put("dislikes", dislikes);
+        data.put("likes", counts[0]);
+        data.put("dislikes", counts[1]);
         data.put("entryId", entryId);
         data.put("entryType", entryType.toString());
 
-        if (currentUserId != null && !currentUserId.isEmpty()) {
+        Map<Long, Boolean> unsaved = writeBehind.isEnabled()
+                ? writeBehind.pendingReactions(currentUserId, List.of(entryId), entryType)
+                : Map.of();
+        if (unsaved.containsKey(entryId)) {
+            data.put("userStatus", status(unsaved.get(entryId)));
+        } else if (currentUserId != null && !currentUserId.isEmpty()) {
             Optional<MovieCommentLike> userLike = likeRepository
                     .findByUserIdAndMovieEntryIdAndEntryType(currentUserId, entryId, entryType);
 
@@ -160,44 +348,6 @@ public class MovieCommentLikeService {
         return data;
     }
 
-    private String getEntryOwner(Long entryId, EntryType type) {
-        try {
-            switch (type) {
-                case FAVORITE:
-                    return favoriteRepository.findById(entryId)
-                            .map(f -> f.getUser().getUserId())
-                            .orElse(null);
-
-                case WATCHED:
-                    if (watchedRepository != null) {
-                        return watchedRepository.findById(entryId)
-                                .map(w -> w.getUser().getUserId())
-                                .orElse(null);
-                    }
-                    break;
-
-                case TOP10:
-                    if (top10Repository != null) {
-                        return top10Repository.findById(entryId)
-                                .map(t -> t.getUser().getUserId())
-                                .orElse(null);
-                    }
-                    break;
-
-                case WATCH_LATER:
-                    if (watchLaterRepository != null) {
-                        return watchLaterRepository.findById(entryId)
-                                .map(wl -> wl.getUser().getUserId())
-                                .orElse(null);
-                    }
-                    break;
-            }
-        } catch (Exception e) {
-            System.err.println("Error getting entry owner: " + e.getMessage());
-        }
-        return null;
-    }
-
     public Map<String, Object> getUserStats(String userId) {
         Map<String, Object> stats = new HashMap<>();
         stats.put("totalLikesReceived", likeRepository.countLikesForOwner(userId));
@@ -209,22 +359,27 @@ public class MovieCommentLikeService {
         return stats;
     }
 
+    // Likes within the trending window whatever the limit; all-time likes only when the
+    // window is disabled. Throws TrendingService.NotReadyException until it is seeded
     public List<Map<String, Object>> getTrendingContent(String entryType, int limit) {
-        List<Object[]> results = likeRepository.findMostLikedEntries(entryType, limit);
+        EntryType type = EntryType.valueOf(entryType);
+        List<Object[]> results = trendingService.isEnabled()
+                ? trendingService.top(type, limit)
+                : likeRepository.findMostLikedEntries(entryType, limit);
         List<Map<String, Object>> trending = new ArrayList<>();
 
         for (Object[] row : results) {
             Map<String, Object> item = new HashMap<>();
-            item.put("entryId", row[0]);
+            item.put("entryId", ((Number) row[0]).longValue());
             item.put("likeCount", row[1]);
             item.put("entryType", entryType);
-
-            Long entryId = ((Number) row[0]).longValue();
-            enrichWithEntryDetails(item, entryId, EntryType.valueOf(entryType));
-
+            if (row.length > 2) {
+                item.put("score", row[2]);
+            }
             trending.add(item);
         }
 
+        enrichWithEntryDetails(trending, type);
         return trending;
     }
 
@@ -234,7 +389,14 @@ public class MovieCommentLikeService {
 
     @Transactional
     public void removeAllLikesForEntry(Long entryId, EntryType entryType) {
+        entryOwners.evict(entryId, entryType);
+        if (writeBehind.isEnabled()) {
+            writeBehind.discard(entryId, entryType);
+        }
         likeRepository.deleteByMovieEntryIdAndEntryType(entryId, entryType);
+        reactionCounts.remove(entryId, entryType);
+        trendingService.removeEntry(entryId, entryType);
+        similarUsers.removeEntry(entryId, entryType);
     }
 
     public List<Map<String, Object>> getUserContentActivity(String userId, int limit) {
@@ -254,18 +416,30 @@ public class MovieCommentLikeService {
                 .collect(Collectors.toList());
     }
 
-    public List<Map<String, Object>> findSimilarUsers(String userId, int limit) {
-        List<Object[]> results = likeRepository.findUsersWithSimilarTaste(userId, limit);
-        List<Map<String, Object>> similarUsers = new ArrayList<>();
+    // Ranked by common likes, or by Jaccard similarity with metric=jaccard; the
+    // self-join only serves requests until the in-memory index has been built
+    public List<Map<String, Object>> findSimilarUsers(String userId, int limit, String metric) {
+        List<Map<String, Object>> result = new ArrayList<>();
+
+        if (similarUsers.isReady()) {
+            for (LikeSimilarityIndex.Match match : similarUsers.similarTo(userId, limit, "jaccard".equalsIgnoreCase(metric))) {
+                Map<String, Object> user = new HashMap<>();
+                user.put("userId", match.userId());
+                user.put("commonLikes", (long) match.commonLikes());
+                user.put("jaccard", match.jaccard());
+                result.add(user);
+            }
+            return result;
+        }
 
-        for (Object[] row : results) {
+        for (Object[] row : likeRepository.findUsersWithSimilarTaste(userId, limit)) {
             Map<String, Object> user = new HashMap<>();
             user.put("userId", row[0]);
             user.put("commonLikes", row[1]);
-            similarUsers.add(user);
+            result.add(user);
         }
 
-        return similarUsers;
+        return result;
     }
 
     public Map<Long, String> getUserReactionsForMultipleEntries(String userId, List<Long> entryIds, EntryType entryType) {
@@ -281,6 +455,14 @@ public class MovieCommentLikeService {
         return reactions;
     }
 
+    // Native queries hand back timestamps as java.sql.Timestamp or LocalDateTime depending on the driver
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
     private double calculateLikeRatio(long likes, long dislikes) {
         if (likes + dislikes == 0) {
             return 0.0;
@@ -288,57 +470,61 @@ public class MovieCommentLikeService {
         return (double) likes / (likes + dislikes) * 100;
     }
 
-    private void enrichWithEntryDetails(Map<String, Object> item, Long entryId, EntryType entryType) {
+    // One query for all rows, entity fields and owner name included
+    private void enrichWithEntryDetails(List<Map<String, Object>> items, EntryType entryType) {
+        if (items.isEmpty()) {
+            return;
+        }
+        List<Long> entryIds = items.stream()
+                .map(item -> (Long) item.get("entryId"))
+                .collect(Collectors.toList());
+        Map<Long, Map<String, Object>> byId = new HashMap<>();
+        items.forEach(item -> byId.put((Long) item.get("entryId"), item));
+
         switch (entryType) {
             case FAVORITE:
-                favoriteRepository.findById(entryId).ifPresent(fav -> {
-                    item.put("movieTitle", fav.getTitle());
-                    item.put("movieId", fav.getMovieId());
-                    item.put("posterPath", fav.getPosterPath());
-                    item.put("owner", fav.getUser().getUsername());
-                });
+                for (Object[] row : favoriteRepository.findTrendingDetails(entryIds)) {
+                    Map<String, Object> item = byId.get((Long) row[0]);
+                    item.put("movieTitle", row[1]);
+                    item.put("movieId", row[2]);
+                    item.put("posterPath", row[3]);
+                    item.put("owner", row[4]);
+                }
                 break;
             case WATCHED:
                 if (watchedRepository != null) {
-                    watchedRepository.findById(entryId).ifPresent(watched -> {
-                        item.put("movieTitle", watched.getTitle());
-                        item.put("movieId", watched.getMovieId());
-                        item.put("owner", watched.getUser().getUsername());
-                    });
+                    for (Object[] row : watchedRepository.findTrendingDetails(entryIds)) {
+                        Map<String, Object> item = byId.get((Long) row[0]);
+                        item.put("movieTitle", row[1]);
+                        item.put("movieId", row[2]);
+                        item.put("owner", row[3]);
+                    }
                 }
                 break;
         }
     }
 
-    @Transactional
-
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Map<String, Object> removeLike(Long entryId, EntryType entryType, String userId) {
-        Map<String, Object> response = new HashMap<>();
-
-        try {
-            Optional<MovieCommentLike> existing = likeRepository
-                    .findByUserIdAndMovieEntryIdAndEntryType(userId, entryId, entryType);
-
-            if (existing.isPresent()) {
-                likeRepository.delete(existing.get());
-                response.put("action", "removed");
-                response.put("message", "Reaction removed successfully");
-            } else {
-                response.put("action", "none");
-                response.put("message", "No existing reaction to remove");
-            }
-
-            long likes = likeRepository.countLikes(entryId, entryType);
-            long dislikes = likeRepository.countDislikes(entryId, entryType);
-
-            response.put("likes", likes);
-            response.put("dislikes", dislikes);
+        if (writeBehind.isEnabled()) {
+            Map<String, Object> response = new HashMap<>();
+            ReactionWriteBehindService.Change change = writeBehind.change(userId, entryId, entryType,
+                    entryOwners.getOwnerId(entryId, entryType), () -> storedReaction(userId, entryId, entryType),
+                    current -> null);
+            boolean removed = change.previous() != null;
+            long[] counts = currentCounts(entryId, entryType);
+            response.put("action", removed ? "removed" : "none");
+            response.put("message", removed ? "Reaction removed successfully" : "No existing reaction to remove");
+            response.put("likes", counts[0]);
+            response.put("dislikes", counts[1]);
             response.put("entryId", entryId);
             response.put("entryType", entryType.toString());
             response.put("userStatus", null);
-
             return response;
+        }
 
+        try {
+            return inRetriedTransaction(() -> removeReadThenWrite(entryId, entryType, userId));
         } catch (Exception e) {
             System.err.println("Error removing like: " + e.getMessage());
             e.printStackTrace();
@@ -346,6 +532,36 @@ public class MovieCommentLikeService {
         }
     }
 
+    private Map<String, Object> removeReadThenWrite(Long entryId, EntryType entryType, String userId) {
+        Map<String, Object> response = new HashMap<>();
+        reactionCounts.lock(entryId, entryType);
+        Optional<MovieCommentLike> existing = likeRepository
+                .findForUpdate(userId, entryId, entryType);
+
+        long[] counts;
+        if (existing.isPresent()) {
+            boolean wasLike = existing.get().getIsLike();
+            likeRepository.delete(existing.get());
+            counts = reactionCounts.apply(entryId, entryType, wasLike ? -1 : 0, wasLike ? 0 : -1);
+            trendingService.changed(entryId, entryType, wasLike ? -1 : 0, existing.get().getCreatedAt());
+            similarUsers.changed(userId, entryId, entryType, false);
+            response.put("action", "removed");
+            response.put("message", "Reaction removed successfully");
+        } else {
+            response.put("action", "none");
+            response.put("message", "No existing reaction to remove");
+            counts = reactionCounts.getCounts(entryId, entryType);
+        }
+
+        response.put("likes", counts[0]);
+        response.put("dislikes", counts[1]);
+        response.put("entryId", entryId);
+        response.put("entryType", entryType.toString());
+        response.put("userStatus", null);
+
+        return response;
+    }
+
     public void enrichDTOsWithLikes(List<? extends MovieEntryDTO> dtos,
             EntryType entryType,
             String currentUserId) {
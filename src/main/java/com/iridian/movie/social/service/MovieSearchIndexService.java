@@ -0,0 +1,459 @@
+package com.iridian.movie.social.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.iridian.movie.social.repository.FavoriteRepository;
+import com.iridian.movie.social.repository.Top10Repository;
+import com.iridian.movie.social.repository.WatchLaterRepository;
+import com.iridian.movie.social.repository.WatchedRepository;
+
+/**
+ * In-memory title index over the movies users have saved plus the movies seen in
+ * TMDB discover responses. Queries match every term as a prefix of some title word
+ * and rank by TMDB popularity plus how many times the movie is saved locally.
+ *
+ * Each refresh only reads library rows past the highest id already read from each
+ * table. Removed rows, and rows whose ids committed out of order, are picked up by
+ * a full reload every library-reload.
+ */
+@Service
+public class MovieSearchIndexService {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final FavoriteRepository favoriteRepository;
+    private final WatchedRepository watchedRepository;
+    private final Top10Repository top10Repository;
+    private final WatchLaterRepository watchLaterRepository;
+    private final boolean enabled;
+    private final int minResults;
+    private final int maxResults;
+    private final int minQueryLength;
+    private final int maxTmdbTitles;
+    private final long libraryReloadMillis;
+
+    // Titles picked up from TMDB responses; folded into the index on the next refresh
+    private final ConcurrentHashMap<Long, MovieDocument> tmdbTitles = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private Map<Long, MovieDocument> libraryTitles = new HashMap<>();
+    private Map<Long, Integer> librarySaves = new HashMap<>();
+    // Highest row id read so far from each of favorites, watched, top10 and watch_later
+    private long[] libraryWatermarks = new long[4];
+    private long libraryLoadedAt;
+    private volatile Index index = Index.EMPTY;
+
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong localAnswers = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong totalQueryNanos = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong libraryRows = new AtomicLong();
+    private volatile long lastRebuildMillis;
+
+    public MovieSearchIndexService(FavoriteRepository favoriteRepository,
+            WatchedRepository watchedRepository,
+            Top10Repository top10Repository,
+            WatchLaterRepository watchLaterRepository,
+            @Value("${tmdb.search.local.enabled:true}") boolean enabled,
+            @Value("${tmdb.search.local.min-results:5}") int minResults,
+            @Value("${tmdb.search.local.max-results:20}") int maxResults,
+            @Value("${tmdb.search.local.min-query-length:2}") int minQueryLength,
+            @Value("${tmdb.search.local.max-tmdb-titles:100000}") int maxTmdbTitles,
+            @Value("${tmdb.search.local.library-reload:6h}") Duration libraryReload) {
+        this.favoriteRepository = favoriteRepository;
+        this.watchedRepository = watchedRepository;
+        this.top10Repository = top10Repository;
+        this.watchLaterRepository = watchLaterRepository;
+        this.enabled = enabled;
+        this.minResults = Math.max(1, minResults);
+        this.maxResults = Math.max(this.minResults, maxResults);
+        this.minQueryLength = minQueryLength;
+        this.maxTmdbTitles = maxTmdbTitles;
+        this.libraryReloadMillis = libraryReload.toMillis();
+    }
+
+    // Returns a TMDB-shaped search response, or null when the index cannot answer
+    // the query well enough and the caller should ask TMDB instead
+    public byte[] search(String query) {
+        if (!enabled || query == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        queries.incrementAndGet();
+        try {
+            List<MovieDocument> results = index.search(query, minQueryLength, minResults, maxResults);
+            if (results == null) {
+                fallbacks.incrementAndGet();
+                return null;
+            }
+            localAnswers.incrementAndGet();
+            return toSearchResponse(results);
+        } finally {
+            totalQueryNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    public void indexTmdbResults(byte[] payload) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            for (MovieDocument document : parseResults(payload)) {
+                if (tmdbTitles.size() >= maxTmdbTitles && !tmdbTitles.containsKey(document.id)) {
+                    return;
+                }
+                tmdbTitles.put(document.id, document);
+                dirty.set(true);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not index TMDB results: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${tmdb.search.local.initial-delay:5s}",
+            fixedDelayString = "${tmdb.search.local.refresh-interval:30s}")
+    public synchronized void refresh() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            boolean libraryChanged = loadLibrary(start - libraryLoadedAt >= libraryReloadMillis);
+            if (!libraryChanged && !dirty.get()) {
+                return;
+            }
+            dirty.set(false);
+            Map<Long, MovieDocument> documents = new HashMap<>(libraryTitles);
+            // TMDB copies carry popularity, so they win over what users saved
+            documents.putAll(tmdbTitles);
+            index = Index.build(documents.values(), librarySaves);
+            rebuilds.incrementAndGet();
+            lastRebuildMillis = System.currentTimeMillis() - start;
+        } catch (RuntimeException e) {
+            System.err.println("Movie search index rebuild failed: " + e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long queryCount = queries.get();
+        stats.put("enabled", enabled);
+        stats.put("titles", index.documents.length);
+        stats.put("terms", index.postings.size());
+        stats.put("tmdbTitles", tmdbTitles.size());
+        stats.put("queries", queryCount);
+        stats.put("localAnswers", localAnswers.get());
+        stats.put("fallbacks", fallbacks.get());
+        stats.put("avgQueryMicros", queryCount == 0 ? 0.0 : totalQueryNanos.get() / 1000.0 / queryCount);
+        stats.put("rebuilds", rebuilds.get());
+        stats.put("libraryRows", libraryRows.get());
+        stats.put("lastRebuildMillis", lastRebuildMillis);
+        return stats;
+    }
+
+    // Reads library rows added since the last call, or every row when full. A full
+    // reload only replaces the current library once all four tables have been read.
+    // Returns whether the library changed
+    private boolean loadLibrary(boolean full) {
+        Map<Long, MovieDocument> titles = full ? new HashMap<>() : libraryTitles;
+        Map<Long, Integer> saves = full ? new HashMap<>() : librarySaves;
+        long[] watermarks = full ? new long[libraryWatermarks.length] : libraryWatermarks.clone();
+        List<Function<Long, List<Object[]>>> sources = List.of(
+                favoriteRepository::findSearchableMoviesAfter,
+                watchedRepository::findSearchableMoviesAfter,
+                top10Repository::findSearchableMoviesAfter,
+                watchLaterRepository::findSearchableMoviesAfter);
+
+        List<Object[]> added = new ArrayList<>();
+        for (int source = 0; source < sources.size(); source++) {
+            for (Object[] row : sources.get(source).apply(watermarks[source])) {
+                watermarks[source] = Math.max(watermarks[source], ((Number) row[7]).longValue());
+                added.add(row);
+            }
+        }
+        for (Object[] row : added) {
+            MovieDocument document = MovieDocument.fromLibraryRow(row);
+            if (document == null) {
+                continue;
+            }
+            titles.putIfAbsent(document.id, document);
+            saves.merge(document.id, 1, Integer::sum);
+        }
+        libraryTitles = titles;
+        librarySaves = saves;
+        libraryWatermarks = watermarks;
+        libraryRows.addAndGet(added.size());
+        if (full) {
+            libraryLoadedAt = System.currentTimeMillis();
+        }
+        return full || !added.isEmpty();
+    }
+
+    private static List<MovieDocument> parseResults(byte[] payload) throws IOException {
+        List<MovieDocument> documents = new ArrayList<>();
+        try (JsonParser parser = JSON.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return documents;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!"results".equals(name) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    MovieDocument document = MovieDocument.fromTmdbResult(parser);
+                    if (document != null) {
+                        documents.add(document);
+                    }
+                }
+            }
+        }
+        return documents;
+    }
+
+    private static byte[] toSearchResponse(List<MovieDocument> results) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(results.size() * 256);
+        try (JsonGenerator generator = JSON.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeNumberField("page", 1);
+            generator.writeArrayFieldStart("results");
+            for (MovieDocument document : results) {
+                document.write(generator);
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("total_pages", 1);
+            generator.writeNumberField("total_results", results.size());
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write search response", e);
+        }
+        return out.toByteArray();
+    }
+
+    static String normalize(String text) {
+        String stripped = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return stripped.toLowerCase(Locale.ROOT);
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : SEPARATORS.split(normalize(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static final class Index {
+
+        static final Index EMPTY = new Index(new MovieDocument[0], new TreeMap<>());
+
+        // Documents are ordered best-ranked first, so ordinals double as rank
+        final MovieDocument[] documents;
+        final NavigableMap<String, int[]> postings;
+
+        private Index(MovieDocument[] documents, NavigableMap<String, int[]> postings) {
+            this.documents = documents;
+            this.postings = postings;
+        }
+
+        static Index build(Iterable<MovieDocument> source, Map<Long, Integer> saves) {
+            List<MovieDocument> ranked = new ArrayList<>();
+            for (MovieDocument document : source) {
+                ranked.add(document.withRank(document.popularity + saves.getOrDefault(document.id, 0)));
+            }
+            ranked.sort(Comparator.comparingDouble((MovieDocument document) -> document.rank).reversed());
+
+            Map<String, List<Integer>> terms = new HashMap<>();
+            for (int ordinal = 0; ordinal < ranked.size(); ordinal++) {
+                for (String token : tokenize(ranked.get(ordinal).title)) {
+                    terms.computeIfAbsent(token, t -> new ArrayList<>(2)).add(ordinal);
+                }
+            }
+            NavigableMap<String, int[]> postings = new TreeMap<>();
+            terms.forEach((token, ordinals) -> postings.put(token,
+                    ordinals.stream().mapToInt(Integer::intValue).toArray()));
+
+            return new Index(ranked.toArray(new MovieDocument[0]), postings);
+        }
+
+        List<MovieDocument> search(String query, int minQueryLength, int minResults, int maxResults) {
+            Set<String> terms = tokenize(query);
+            if (terms.isEmpty() || String.join("", terms).length() < minQueryLength) {
+                return null;
+            }
+
+            BitSet matches = null;
+            for (String term : terms) {
+                BitSet termMatches = new BitSet(documents.length);
+                for (int[] ordinals : postings.subMap(term, true, term + Character.MAX_VALUE, true).values()) {
+                    for (int ordinal : ordinals) {
+                        termMatches.set(ordinal);
+                    }
+                }
+                if (matches == null) {
+                    matches = termMatches;
+                } else {
+                    matches.and(termMatches);
+                }
+                if (matches.cardinality() < minResults) {
+                    return null;
+                }
+            }
+
+            // Titles that start with the query go first; each group keeps rank order
+            String phrase = normalize(query).trim();
+            List<MovieDocument> leading = new ArrayList<>(maxResults);
+            List<MovieDocument> others = new ArrayList<>(maxResults);
+            for (int ordinal = matches.nextSetBit(0);
+                    ordinal >= 0 && leading.size() < maxResults;
+                    ordinal = matches.nextSetBit(ordinal + 1)) {
+                MovieDocument document = documents[ordinal];
+                if (document.normalizedTitle.startsWith(phrase)) {
+                    leading.add(document);
+                } else if (others.size() < maxResults) {
+                    others.add(document);
+                }
+            }
+            leading.addAll(others);
+            return leading.size() > maxResults ? leading.subList(0, maxResults) : leading;
+        }
+    }
+
+    private static final class MovieDocument {
+
+        final long id;
+        final String title;
+        final String normalizedTitle;
+        final String posterPath;
+        final Double voteAverage;
+        final int[] genreIds;
+        final String releaseDate;
+        final String overview;
+        final double popularity;
+        final double rank;
+
+        MovieDocument(long id, String title, String posterPath, Double voteAverage, int[] genreIds,
+                String releaseDate, String overview, double popularity, double rank) {
+            this.id = id;
+            this.title = title;
+            this.normalizedTitle = normalize(title);
+            this.posterPath = posterPath;
+            this.voteAverage = voteAverage;
+            this.genreIds = genreIds;
+            this.releaseDate = releaseDate;
+            this.overview = overview;
+            this.popularity = popularity;
+            this.rank = rank;
+        }
+
+        MovieDocument withRank(double newRank) {
+            return new MovieDocument(id, title, posterPath, voteAverage, genreIds,
+                    releaseDate, overview, popularity, newRank);
+        }
+
+        // Row layout matches the findSearchableMoviesAfter() queries
+        static MovieDocument fromLibraryRow(Object[] row) {
+            if (row[0] == null || row[1] == null) {
+                return null;
+            }
+            int[] genres = row[6] instanceof List<?> list
+                    ? list.stream().filter(Number.class::isInstance).mapToInt(g -> ((Number) g).intValue()).toArray()
+                    : new int[0];
+            return new MovieDocument(((Number) row[0]).longValue(), (String) row[1], (String) row[2],
+                    (Double) row[3], genres, (String) row[4], (String) row[5], 0, 0);
+        }
+
+        static MovieDocument fromTmdbResult(JsonParser parser) throws IOException {
+            Long id = null;
+            String title = null;
+            String posterPath = null;
+            Double voteAverage = null;
+            int[] genreIds = new int[0];
+            String releaseDate = null;
+            String overview = null;
+            double popularity = 0;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (name) {
+                    case "id" -> id = parser.getLongValue();
+                    case "title" -> title = parser.getText();
+                    case "poster_path" -> posterPath = parser.getText();
+                    case "vote_average" -> voteAverage = parser.getDoubleValue();
+                    case "release_date" -> releaseDate = parser.getText();
+                    case "overview" -> overview = parser.getText();
+                    case "popularity" -> popularity = parser.getDoubleValue();
+                    case "genre_ids" -> {
+                        List<Integer> genres = new ArrayList<>();
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            genres.add(parser.getIntValue());
+                        }
+                        genreIds = genres.stream().mapToInt(Integer::intValue).toArray();
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            if (id == null || title == null) {
+                return null;
+            }
+            return new MovieDocument(id, title, posterPath, voteAverage, genreIds,
+                    releaseDate, overview, popularity, popularity);
+        }
+
+        void write(JsonGenerator generator) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", id);
+            generator.writeStringField("title", title);
+            generator.writeStringField("poster_path", posterPath);
+            if (voteAverage != null) {
+                generator.writeNumberField("vote_average", voteAverage);
+            } else {
+                generator.writeNullField("vote_average");
+            }
+            generator.writeFieldName("genre_ids");
+            generator.writeArray(genreIds, 0, genreIds.length);
+            generator.writeStringField("release_date", releaseDate);
+            generator.writeStringField("overview", overview);
+            generator.writeNumberField("popularity", popularity);
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.iridian.movie.social.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.iridian.movie.social.model.EntryType;
+import com.iridian.movie.social.model.ReactionCount;
+import com.iridian.movie.social.repository.MovieCommentLikeRepository;
+import com.iridian.movie.social.repository.ReactionCountRepository;
+import com.iridian.movie.social.util.AfterCommit;
+import com.iridian.movie.social.util.ReactionCountCache;
+
+/**
+ * Per-entry like/dislike totals in reaction_counts, so reading an entry's counts
+ * is a primary-key lookup instead of a COUNT over movie_comment_likes.
+ *
+ * Totals are adjusted in the same transaction as the reaction change. A periodic
+ * reconciliation recounts from movie_comment_likes and repairs any drift; until
+ * it has run once after startup, reads count from movie_comment_likes directly,
+ * since reactions written before the counters existed are not reflected yet.
+ * Each entry is repaired in its own transaction with its counter row locked, so
+ * reactions on that entry wait for the repair instead of being overwritten by it.
+ *
+ * Reads go through ReactionCountCache; committed changes are added to the cached
+ * counters, so a cached entry is never reloaded just because someone reacted.
+ */
+@Service
+public class ReactionCountService {
+
+    private record Entry(Long entryId, EntryType entryType) {
+    }
+
+    private enum Repair {
+        UNCHANGED, REPAIRED, REMOVED
+    }
+
+    private static final int LOAD_ATTEMPTS = 3;
+
+    private final ReactionCountRepository countRepository;
+    private final MovieCommentLikeRepository likeRepository;
+    private final ReactionCountCache cache;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final boolean cacheEnabled;
+
+    private volatile boolean reconciled;
+    private volatile long lastReconciledAt;
+
+    private final AtomicLong reconciliations = new AtomicLong();
+    private final AtomicLong repairedEntries = new AtomicLong();
+    private final AtomicLong removedEntries = new AtomicLong();
+    private final AtomicLong failedEntries = new AtomicLong();
+
+    public ReactionCountService(ReactionCountRepository countRepository,
+            MovieCommentLikeRepository likeRepository,
+            ReactionCountCache cache,
+            TransactionTemplate transactionTemplate,
+            @Value("${reactions.counts.enabled:true}") boolean enabled,
+            @Value("${reactions.cache.enabled:true}") boolean cacheEnabled) {
+        this.countRepository = countRepository;
+        this.likeRepository = likeRepository;
+        this.cache = cache;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // True once reads can trust reaction_counts
+    public boolean isReady() {
+        return enabled && reconciled;
+    }
+
+    // Must run inside the transaction that changed the reaction, so both commit or neither does.
+    // Returns the entry's {likes, dislikes} as seen by that transaction
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long[] apply(Long entryId, EntryType entryType, long likeDelta, long dislikeDelta) {
+        if (enabled && (likeDelta != 0 || dislikeDelta != 0)) {
+            if (countRepository.addToCounts(entryId, entryType, likeDelta, dislikeDelta) == 0) {
+                countRepository.saveAndFlush(new ReactionCount(entryId, entryType, likeDelta, dislikeDelta));
+            }
+        }
+        applied(entryId, entryType, likeDelta, dislikeDelta);
+        return loadCounts(entryId, entryType);
+    }
+
+    // Locks the entry's counter row until the transaction ends, creating it if needed, so
+    // read-then-write reaction changes on one entry run one at a time. Two transactions
+    // creating the same row make one fail on unique_reaction_count_entry; callers retry.
+    // Done even with counters disabled, since the row is then only used as the lock
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lock(Long entryId, EntryType entryType) {
+        lockRow(entryId, entryType);
+    }
+
+    // For callers that already adjusted reaction_counts themselves in this transaction
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applied(Long entryId, EntryType entryType, long likeDelta, long dislikeDelta) {
+        // The cache only learns about the change once it is durable, and meanwhile does
+        // not cache cold loads that may or may not include it
+        if (cacheEnabled && (likeDelta != 0 || dislikeDelta != 0)) {
+            cache.changing(entryId, entryType);
+            AfterCommit.run(() -> committed(entryId, entryType, likeDelta, dislikeDelta),
+                    () -> cache.changeDone(entryId, entryType));
+        }
+    }
+
+    // For changes committed outside a Spring transaction, such as write-behind flushes:
+    // call changing() before committing and changeDone() after committed() or a rollback
+    public void changing(Long entryId, EntryType entryType) {
+        if (cacheEnabled) {
+            cache.changing(entryId, entryType);
+        }
+    }
+
+    public void committed(Long entryId, EntryType entryType, long likeDelta, long dislikeDelta) {
+        if (cacheEnabled && (likeDelta != 0 || dislikeDelta != 0)) {
+            cache.add(entryId, entryType, likeDelta, dislikeDelta);
+        }
+    }
+
+    public void changeDone(Long entryId, EntryType entryType) {
+        if (cacheEnabled) {
+            cache.changeDone(entryId, entryType);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(Long entryId, EntryType entryType) {
+        if (enabled) {
+            countRepository.deleteCounts(entryId, entryType);
+            AfterCommit.run(() -> cache.invalidate(entryId, entryType));
+        }
+    }
+
+    // Returns {likes, dislikes}
+    @Transactional(readOnly = true)
+    public long[] getCounts(Long entryId, EntryType entryType) {
+        if (!isReady() || !cacheEnabled) {
+            return loadCounts(entryId, entryType);
+        }
+        long[] cached = cache.get(entryId, entryType);
+        if (cached != null) {
+            return cached;
+        }
+        long[] counts = null;
+        for (int attempt = 0; attempt < LOAD_ATTEMPTS; attempt++) {
+            long stamp = cache.stamp(entryId, entryType);
+            counts = loadCounts(entryId, entryType);
+            if (cache.putIfUnchanged(entryId, entryType, counts[0], counts[1], stamp)) {
+                break;
+            }
+        }
+        // Still correct as of the last load, just not cached while the entry keeps changing
+        return counts;
+    }
+
+    // Only valid once isReady(); entries without reactions map to {0, 0}
+    @Transactional(readOnly = true)
+    public Map<Long, long[]> getCounts(List<Long> entryIds, EntryType entryType) {
+        if (!cacheEnabled) {
+            return loadCounts(entryIds, entryType);
+        }
+        return cache.getAll(entryIds, entryType, missing -> loadCounts(missing, entryType));
+    }
+
+    // Not one transaction: a failed entry is logged and left for the next run, and no
+    // counter row stays locked for longer than its own repair
+    @Scheduled(initialDelayString = "${reactions.counts.reconcile.initial-delay:10s}",
+            fixedDelayString = "${reactions.counts.reconcile.interval:1h}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        List<Entry> suspects = new ArrayList<>();
+        try {
+            Map<String, long[]> actual = new HashMap<>();
+            for (Object[] row : likeRepository.countReactionsByEntry()) {
+                actual.put(key((Long) row[0], (EntryType) row[1]),
+                        new long[]{((Number) row[2]).longValue(), ((Number) row[3]).longValue()});
+            }
+            for (ReactionCount stored : countRepository.findAll()) {
+                long[] expected = actual.remove(key(stored.getMovieEntryId(), stored.getEntryType()));
+                if (expected == null || expected[0] != stored.getLikes() || expected[1] != stored.getDislikes()) {
+                    suspects.add(new Entry(stored.getMovieEntryId(), stored.getEntryType()));
+                }
+            }
+            // Entries with reactions but no counter row yet, e.g. from before the table existed
+            for (String missing : actual.keySet()) {
+                int separator = missing.indexOf(':');
+                suspects.add(new Entry(Long.valueOf(missing.substring(separator + 1)),
+                        EntryType.valueOf(missing.substring(0, separator))));
+            }
+        } catch (Exception e) {
+            System.err.println("Reaction count reconciliation failed: " + e.getMessage());
+            return;
+        }
+
+        long repaired = 0;
+        long removed = 0;
+        long failed = 0;
+        for (Entry entry : suspects) {
+            try {
+                Repair result = transactionTemplate.execute(status -> repair(entry.entryId(), entry.entryType()));
+                if (result == Repair.REPAIRED) {
+                    repaired++;
+                } else if (result == Repair.REMOVED) {
+                    removed++;
+                }
+            } catch (Exception e) {
+                failed++;
+                System.err.println("Reaction count repair of " + entry.entryType() + " " + entry.entryId()
+                        + " failed: " + e.getMessage());
+            }
+        }
+
+        reconciliations.incrementAndGet();
+        repairedEntries.addAndGet(repaired);
+        removedEntries.addAndGet(removed);
+        failedEntries.addAndGet(failed);
+        lastReconciledAt = System.currentTimeMillis();
+        // Reads only switch to reaction_counts once every entry has been backfilled
+        if (failed == 0) {
+            reconciled = true;
+        }
+        if (repaired > 0 || failed > 0) {
+            System.out.println("Reaction counts reconciled: " + repaired + " entries repaired, " + failed + " failed");
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("cache", cacheEnabled ? cache.getStats() : null);
+        stats.put("ready", isReady());
+        stats.put("reconciliations", reconciliations.get());
+        stats.put("repairedEntries", repairedEntries.get());
+        stats.put("removedEntries", removedEntries.get());
+        stats.put("failedEntries", failedEntries.get());
+        stats.put("lastReconciledAt", lastReconciledAt);
+        return stats;
+    }
+
+    // Recounts with the entry's counter row locked, so no reaction on the entry can land
+    // between the count and the write, and corrects the row by the difference
+    private Repair repair(Long entryId, EntryType entryType) {
+        ReactionCount stored = lockRow(entryId, entryType);
+        long likes = likeRepository.countLikes(entryId, entryType);
+        long dislikes = likeRepository.countDislikes(entryId, entryType);
+        Repair result;
+        if (likes == 0 && dislikes == 0) {
+            countRepository.deleteCounts(entryId, entryType);
+            result = stored.getLikes() == 0 && stored.getDislikes() == 0 ? Repair.REMOVED : Repair.REPAIRED;
+        } else if (likes != stored.getLikes() || dislikes != stored.getDislikes()) {
+            countRepository.addToCounts(entryId, entryType, likes - stored.getLikes(), dislikes - stored.getDislikes());
+            result = Repair.REPAIRED;
+        } else {
+            return Repair.UNCHANGED;
+        }
+        AfterCommit.run(() -> cache.invalidate(entryId, entryType));
+        return result;
+    }
+
+    private ReactionCount lockRow(Long entryId, EntryType entryType) {
+        return countRepository.findForUpdate(entryId, entryType)
+                .orElseGet(() -> countRepository.saveAndFlush(new ReactionCount(entryId, entryType, 0, 0)));
+    }
+
+    private long[] loadCounts(Long entryId, EntryType entryType) {
+        if (!isReady()) {
+            return new long[]{likeRepository.countLikes(entryId, entryType),
+                likeRepository.countDislikes(entryId, entryType)};
+        }
+        return countRepository.findByMovieEntryIdAndEntryType(entryId, entryType)
+                .map(counts -> new long[]{counts.getLikes(), counts.getDislikes()})
+                .orElseGet(() -> new long[]{0, 0});
+    }
+
+    private Map<Long, long[]> loadCounts(List<Long> entryIds, EntryType entryType) {
+        Map<Long, long[]> counts = new HashMap<>();
+        for (ReactionCount row : countRepository.findByEntryTypeAndMovieEntryIdIn(entryType, entryIds)) {
+            counts.put(row.getMovieEntryId(), new long[]{row.getLikes(), row.getDislikes()});
+        }
+        return counts;
+    }
+
+    private static String key(Long entryId, EntryType entryType) {
+        return entryType.name() + ":" + entryId;
+    }
+}
@@ -0,0 +1,706 @@
+package com.iridian.movie.social.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.iridian.movie.social.model.EntryType;
+import com.iridian.movie.social.model.MovieCommentLike;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Optional write-behind for reactions. A toggle only updates the in-memory state
+ * for its (user, entry) pair and queues the pair; a single flusher thread writes
+ * queued pairs to movie_comment_likes and reaction_counts in JDBC batches, once
+ * batch-size pairs are waiting or flush-interval after the first one arrived.
+ * Toggling the same pair again before it is flushed only changes the state that
+ * will be written, so a burst of double-clicks costs at most one row change.
+ *
+ * With durability=async a toggle returns as soon as it is queued and a crash loses
+ * whatever was not flushed yet; with durability=sync it waits for its row to commit,
+ * across retries of failed batches, and only fails if the pair is given up on. When the queue is full, toggles wait up to offer-timeout for room and are
+ * then rejected.
+ *
+ * The flusher keeps one pooled connection for itself, so sync toggles waiting on it
+ * while holding their own connections cannot starve it. Readers that go straight to
+ * the tables (stats, trending) see a reaction once it is flushed.
+ */
+@Service
+public class ReactionWriteBehindService {
+
+    public static class RejectedException extends RuntimeException {
+
+        public RejectedException(String message) {
+            super(message);
+        }
+    }
+
+    // previous and current are null when the user has no reaction on the entry
+    public record Change(Boolean previous, Boolean current) {
+    }
+
+    private record Key(String userId, long entryId, EntryType entryType) {
+    }
+
+    private record EntryKey(long entryId, EntryType entryType) {
+    }
+
+    private static final class Pending {
+
+        volatile Boolean stored;
+        volatile Boolean desired;
+        // created_at of the stored row, which dates a like for the trending window
+        LocalDateTime storedAt;
+        String ownerId;
+        boolean queued;
+        int failures;
+        CompletableFuture<Void> flushed = new CompletableFuture<>();
+
+        Pending(MovieCommentLike row, String ownerId) {
+            this.stored = row != null ? row.getIsLike() : null;
+            this.desired = stored;
+            this.storedAt = row != null ? row.getCreatedAt() : null;
+            this.ownerId = ownerId;
+        }
+    }
+
+    private record Snapshot(Key key, Boolean stored, Boolean desired, LocalDateTime storedAt, String ownerId,
+            CompletableFuture<Void> flushed) {
+    }
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final DataSource dataSource;
+    private final ReactionCountService reactionCounts;
+    private final SimilarUsersService similarUsers;
+    private final TrendingService trending;
+    private final boolean enabled;
+    private final boolean sync;
+    private final long flushIntervalNanos;
+    private final int batchSize;
+    private final long offerTimeoutNanos;
+    private final Duration syncTimeout;
+
+    private final ConcurrentHashMap<Key, Pending> pending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<EntryKey, long[]> unflushed = new ConcurrentHashMap<>();
+    private final LinkedBlockingQueue<Key> queue;
+    private final List<Key> retry = new ArrayList<>();
+    private final Object capacity = new Object();
+
+    private volatile boolean running;
+    private boolean isolateNextFlush;
+    private Thread flusher;
+    private Connection connection;
+
+    private final AtomicLong acknowledged = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong rebased = new AtomicLong();
+    private final AtomicLong droppedPairs = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxBatch = new AtomicLong();
+
+    public ReactionWriteBehindService(DataSource dataSource,
+            ReactionCountService reactionCounts,
+            SimilarUsersService similarUsers,
+            TrendingService trending,
+            @Value("${reactions.write-behind.enabled:false}") boolean enabled,
+            @Value("${reactions.write-behind.durability:async}") String durability,
+            @Value("${reactions.write-behind.flush-interval:100ms}") Duration flushInterval,
+            @Value("${reactions.write-behind.batch-size:500}") int batchSize,
+            @Value("${reactions.write-behind.queue-capacity:10000}") int queueCapacity,
+            @Value("${reactions.write-behind.offer-timeout:50ms}") Duration offerTimeout,
+            @Value("${reactions.write-behind.sync-timeout:5s}") Duration syncTimeout) {
+        if (!"async".equalsIgnoreCase(durability) && !"sync".equalsIgnoreCase(durability)) {
+            throw new IllegalArgumentException("reactions.write-behind.durability must be sync or async, was " + durability);
+        }
+        this.dataSource = dataSource;
+        this.reactionCounts = reactionCounts;
+        this.similarUsers = similarUsers;
+        this.trending = trending;
+        this.enabled = enabled;
+        this.sync = "sync".equalsIgnoreCase(durability);
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.batchSize = Math.max(1, batchSize);
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, queueCapacity));
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.syncTimeout = syncTimeout;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        // Taken up front: once sync toggles hold every other pooled connection while
+        // they wait, the flusher could not get one
+        try {
+            connection();
+        } catch (SQLException e) {
+            System.err.println("Reaction write-behind could not connect yet: " + e.getMessage());
+        }
+        running = true;
+        flusher = new Thread(this::run, "reaction-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Flushes everything still queued before the datasource goes away
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        flusher.join(syncTimeout.toMillis() * 2);
+        if (!pending.isEmpty()) {
+            System.err.println("Reaction write-behind stopped with " + pending.size() + " unsaved reactions");
+        }
+    }
+
+    /**
+     * Moves the user's reaction on an entry from its current state to next(current).
+     * stored is only asked for the database state when nothing is pending for the pair.
+     */
+    public Change change(String userId, Long entryId, EntryType entryType, String ownerId,
+            Supplier<MovieCommentLike> stored, UnaryOperator<Boolean> next) {
+        Key key = new Key(userId, entryId, entryType);
+        awaitCapacity();
+
+        Change[] change = new Change[1];
+        CompletableFuture<?>[] flushed = new CompletableFuture<?>[1];
+        while (change[0] == null) {
+            // Read outside compute; if the pair was flushed and dropped meanwhile, read again
+            boolean loaded = !pending.containsKey(key);
+            MovieCommentLike storedRow = loaded ? stored.get() : null;
+            pending.compute(key, (k, p) -> {
+                if (p == null && !loaded) {
+                    return null;
+                }
+                return apply(k, p != null ? p : new Pending(storedRow, ownerId), ownerId, next, change, flushed);
+            });
+        }
+        acknowledged.incrementAndGet();
+
+        if (sync) {
+            await(flushed[0]);
+        }
+        return change[0];
+    }
+
+    private Pending apply(Key key, Pending current, String ownerId, UnaryOperator<Boolean> next,
+            Change[] change, CompletableFuture<?>[] flushed) {
+        if (current.queued) {
+            collapsed.incrementAndGet();
+        } else if (queue.offer(key)) {
+            current.queued = true;
+        } else {
+            // Nothing has been changed yet, so the pair is left exactly as it was
+            rejected.incrementAndGet();
+            throw new RejectedException("Too many reactions waiting to be saved, please retry");
+        }
+        if (ownerId != null) {
+            current.ownerId = ownerId;
+        }
+        Boolean previous = current.desired;
+        Boolean desired = next.apply(previous);
+        adjustUnflushed(key, current.stored, previous, current.stored, desired);
+        current.desired = desired;
+        change[0] = new Change(previous, desired);
+        flushed[0] = current.flushed;
+        return current;
+    }
+
+    // The user's unsaved reactions among entryIds; a null value means the reaction is being removed
+    public Map<Long, Boolean> pendingReactions(String userId, Collection<Long> entryIds, EntryType entryType) {
+        Map<Long, Boolean> reactions = new HashMap<>();
+        if (pending.isEmpty() || userId == null) {
+            return reactions;
+        }
+        for (Long entryId : entryIds) {
+            Pending p = pending.get(new Key(userId, entryId, entryType));
+            if (p != null) {
+                reactions.put(entryId, p.desired);
+            }
+        }
+        return reactions;
+    }
+
+    // {likes, dislikes} acknowledged for the entry but not yet in reaction_counts
+    public long[] unflushedCounts(Long entryId, EntryType entryType) {
+        long[] delta = unflushed.get(new EntryKey(entryId, entryType));
+        return delta != null ? delta.clone() : new long[]{0, 0};
+    }
+
+    // Drops unsaved reactions on an entry that is being deleted
+    public void discard(Long entryId, EntryType entryType) {
+        pending.forEach((key, p) -> {
+            if (key.entryId() == entryId && key.entryType() == entryType) {
+                pending.computeIfPresent(key, (k, current) -> {
+                    adjustUnflushed(k, current.stored, current.desired, null, null);
+                    current.flushed.complete(null);
+                    return null;
+                });
+            }
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long flushCount = flushes.get();
+        stats.put("enabled", enabled);
+        stats.put("durability", sync ? "sync" : "async");
+        stats.put("pending", pending.size());
+        stats.put("queued", queue.size());
+        stats.put("queueCapacity", queue.size() + queue.remainingCapacity());
+        stats.put("acknowledged", acknowledged.get());
+        stats.put("collapsed", collapsed.get());
+        stats.put("rejected", rejected.get());
+        stats.put("flushes", flushCount);
+        stats.put("flushedRows", flushedRows.get());
+        stats.put("failedFlushes", failedFlushes.get());
+        stats.put("rebased", rebased.get());
+        stats.put("dropped", droppedPairs.get());
+        stats.put("maxBatch", maxBatch.get());
+        stats.put("avgFlushMillis", flushCount == 0 ? 0.0 : totalFlushNanos.get() / 1e6 / flushCount);
+        return stats;
+    }
+
+    private void awaitCapacity() {
+        if (queue.remainingCapacity() > 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + offerTimeoutNanos;
+        synchronized (capacity) {
+            long remaining;
+            while (queue.remainingCapacity() == 0 && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(capacity, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void await(CompletableFuture<?> flushed) {
+        try {
+            flushed.get(syncTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Timed out waiting for the reaction to be saved");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Reaction could not be saved: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while saving the reaction", e);
+        }
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty() || !retry.isEmpty()) {
+            try {
+                List<Key> batch = collect();
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("Reaction write-behind flush failed: " + e.getMessage());
+            }
+        }
+        closeConnection();
+    }
+
+    // Waits for the first pair, then gathers more until the batch is full or the interval is up
+    private List<Key> collect() throws InterruptedException {
+        LinkedHashSet<Key> batch = new LinkedHashSet<>(retry);
+        retry.clear();
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        if (batch.isEmpty()) {
+            Key first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+            if (first == null) {
+                return List.of();
+            }
+            batch.add(first);
+            deadline = System.nanoTime() + flushIntervalNanos;
+        }
+        while (batch.size() < batchSize) {
+            long remaining = running ? deadline - System.nanoTime() : 0;
+            Key key = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (key == null) {
+                break;
+            }
+            batch.add(key);
+        }
+        synchronized (capacity) {
+            capacity.notifyAll();
+        }
+        return new ArrayList<>(batch);
+    }
+
+    private void flush(List<Key> keys) {
+        List<Snapshot> changes = new ArrayList<>();
+        List<CompletableFuture<Void>> unchanged = new ArrayList<>();
+        for (Key key : keys) {
+            pending.computeIfPresent(key, (k, p) -> {
+                if (Objects.equals(p.stored, p.desired)) {
+                    unchanged.add(p.flushed);
+                } else {
+                    changes.add(new Snapshot(k, p.stored, p.desired, p.storedAt, p.ownerId, p.flushed));
+                }
+                p.queued = false;
+                p.flushed = new CompletableFuture<>();
+                return p;
+            });
+        }
+
+        // After a batch failed with the database up, write pairs one by one so a
+        // single bad pair cannot keep failing everyone else's
+        List<List<Snapshot>> groups = new ArrayList<>();
+        if (isolateNextFlush) {
+            changes.forEach(change -> groups.add(List.of(change)));
+        } else if (!changes.isEmpty()) {
+            groups.add(changes);
+        }
+        isolateNextFlush = false;
+
+        boolean failed = false;
+        for (List<Snapshot> group : groups) {
+            failed |= !flushGroup(group);
+        }
+        maxBatch.accumulateAndGet(keys.size(), Math::max);
+        settle(keys, unchanged);
+        if (failed) {
+            sleepBeforeRetry();
+        }
+    }
+
+    // Keeps the count cache from caching loads that race the commit until its deltas are applied
+    private boolean flushGroup(List<Snapshot> changes) {
+        Set<EntryKey> entries = new LinkedHashSet<>();
+        for (Snapshot change : changes) {
+            entries.add(new EntryKey(change.key().entryId(), change.key().entryType()));
+        }
+        entries.forEach(entry -> reactionCounts.changing(entry.entryId(), entry.entryType()));
+        try {
+            return writeGroup(changes);
+        } finally {
+            entries.forEach(entry -> reactionCounts.changeDone(entry.entryId(), entry.entryType()));
+        }
+    }
+
+    private boolean writeGroup(List<Snapshot> changes) {
+        long started = System.nanoTime();
+        Map<EntryKey, long[]> deltas = new LinkedHashMap<>();
+        LocalDateTime writtenAt = LocalDateTime.now();
+        try {
+            write(changes, deltas, writtenAt);
+        } catch (SQLException e) {
+            failedFlushes.incrementAndGet();
+            System.err.println("Reaction write-behind flush of " + changes.size() + " reactions failed: " + e.getMessage());
+            closeConnection();
+            // Waiters keep waiting for the retry; only giving up on the pair fails them
+            for (Snapshot change : changes) {
+                carryOver(change);
+            }
+            boolean reachable = rebase(changes);
+            isolateNextFlush |= reachable;
+            for (Snapshot change : changes) {
+                if (reachable && changes.size() == 1 && giveUp(change.key())) {
+                    continue;
+                }
+                retry.add(change.key());
+            }
+            return false;
+        }
+
+        flushes.incrementAndGet();
+        flushedRows.addAndGet(changes.size());
+        totalFlushNanos.addAndGet(System.nanoTime() - started);
+
+        deltas.forEach((entry, delta) -> reactionCounts.committed(entry.entryId(), entry.entryType(), delta[0], delta[1]));
+        for (Snapshot change : changes) {
+            Key key = change.key();
+            similarUsers.changed(key.userId(), key.entryId(), key.entryType(), Boolean.TRUE.equals(change.desired()));
+            // An insert is dated now; an update keeps the row, and so the date, it had
+            LocalDateTime likedAt = change.stored() == null ? writtenAt : change.storedAt();
+            if (Boolean.TRUE.equals(change.stored()) != Boolean.TRUE.equals(change.desired())) {
+                trending.record(key.entryId(), key.entryType(), Boolean.TRUE.equals(change.desired()) ? 1 : -1, likedAt);
+            }
+            pending.computeIfPresent(key, (k, p) -> {
+                adjustUnflushed(k, p.stored, p.desired, change.desired(), p.desired);
+                p.stored = change.desired();
+                p.storedAt = change.desired() == null ? null : likedAt;
+                p.failures = 0;
+                return settled(p) ? null : p;
+            });
+            change.flushed().complete(null);
+        }
+        return true;
+    }
+
+    // Hands the failed write's waiters to whatever write of the pair comes next; a pair
+    // that is gone was discarded with its entry, which releases its waiters
+    private void carryOver(Snapshot change) {
+        CompletableFuture<Void> waiters = change.flushed();
+        Pending p = pending.computeIfPresent(change.key(), (k, current) -> {
+            current.flushed.whenComplete((ignored, failure) -> {
+                if (failure != null) {
+                    waiters.completeExceptionally(failure);
+                } else {
+                    waiters.complete(null);
+                }
+            });
+            return current;
+        });
+        if (p == null) {
+            waiters.complete(null);
+        }
+    }
+
+    // A pair that fails on its own while the database is reachable is dropped after
+    // a few attempts, falling back to whatever the table holds
+    private boolean giveUp(Key key) {
+        List<CompletableFuture<Void>> dropped = new ArrayList<>(1);
+        pending.computeIfPresent(key, (k, p) -> {
+            if (++p.failures < MAX_ATTEMPTS) {
+                return p;
+            }
+            adjustUnflushed(k, p.stored, p.desired, p.stored, p.stored);
+            dropped.add(p.flushed);
+            return null;
+        });
+        if (dropped.isEmpty()) {
+            return false;
+        }
+        droppedPairs.incrementAndGet();
+        System.err.println("Reaction write-behind dropped the reaction of " + key.userId() + " on "
+                + key.entryType() + " " + key.entryId() + " after " + MAX_ATTEMPTS + " failed writes");
+        dropped.get(0).completeExceptionally(new RuntimeException("database rejected the reaction"));
+        return true;
+    }
+
+    // Drops pairs that have nothing left to write and releases their waiters
+    private void settle(List<Key> keys, List<CompletableFuture<Void>> unchanged) {
+        for (Key key : keys) {
+            pending.computeIfPresent(key, (k, p) -> settled(p) ? null : p);
+        }
+        unchanged.forEach(future -> future.complete(null));
+    }
+
+    private static boolean settled(Pending p) {
+        return !p.queued && Objects.equals(p.stored, p.desired);
+    }
+
+    private void write(List<Snapshot> changes, Map<EntryKey, long[]> deltas, LocalDateTime writtenAt)
+            throws SQLException {
+        Connection db = connection();
+        try (PreparedStatement insert = db.prepareStatement("INSERT INTO movie_comment_likes "
+                + "(user_id, movie_entry_id, entry_type, movie_owner_id, is_like, created_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?)");
+                PreparedStatement update = db.prepareStatement("UPDATE movie_comment_likes SET is_like = ? "
+                        + "WHERE user_id = ? AND movie_entry_id = ? AND entry_type = ? AND is_like = ?");
+                PreparedStatement delete = db.prepareStatement("DELETE FROM movie_comment_likes "
+                        + "WHERE user_id = ? AND movie_entry_id = ? AND entry_type = ? AND is_like = ?")) {
+            for (Snapshot change : changes) {
+                Key key = change.key();
+                if (change.stored() == null) {
+                    insert.setString(1, key.userId());
+                    insert.setLong(2, key.entryId());
+                    insert.setString(3, key.entryType().name());
+                    insert.setString(4, change.ownerId());
+                    insert.setBoolean(5, change.desired());
+                    insert.setTimestamp(6, Timestamp.valueOf(writtenAt));
+                    insert.addBatch();
+                } else if (change.desired() == null) {
+                    delete.setString(1, key.userId());
+                    delete.setLong(2, key.entryId());
+                    delete.setString(3, key.entryType().name());
+                    delete.setBoolean(4, change.stored());
+                    delete.addBatch();
+                } else {
+                    update.setBoolean(1, change.desired());
+                    update.setString(2, key.userId());
+                    update.setLong(3, key.entryId());
+                    update.setString(4, key.entryType().name());
+                    update.setBoolean(5, change.stored());
+                    update.addBatch();
+                }
+                long[] delta = deltas.computeIfAbsent(new EntryKey(key.entryId(), key.entryType()), e -> new long[2]);
+                addContribution(delta, change.stored(), change.desired(), 1);
+            }
+            // Every statement is conditional on the state the pair believes is stored, so a
+            // pair whose stored state was wrong fails the batch instead of skewing the counts
+            expectOneRowEach(delete.executeBatch());
+            expectOneRowEach(update.executeBatch());
+            insert.executeBatch();
+            if (reactionCounts.isEnabled()) {
+                writeCounts(db, deltas);
+            }
+            db.commit();
+        } catch (SQLException | RuntimeException e) {
+            try {
+                db.rollback();
+            } catch (SQLException ignored) {
+            }
+            throw e instanceof SQLException sqlException ? sqlException : new SQLException(e);
+        }
+    }
+
+    private void writeCounts(Connection db, Map<EntryKey, long[]> deltas) throws SQLException {
+        try (PreparedStatement create = db.prepareStatement("INSERT INTO reaction_counts "
+                + "(movie_entry_id, entry_type, likes, dislikes) VALUES (?, ?, 0, 0) ON CONFLICT DO NOTHING");
+                PreparedStatement add = db.prepareStatement("UPDATE reaction_counts "
+                        + "SET likes = likes + ?, dislikes = dislikes + ? WHERE movie_entry_id = ? AND entry_type = ?")) {
+            for (Map.Entry<EntryKey, long[]> entry : deltas.entrySet()) {
+                long[] delta = entry.getValue();
+                if (delta[0] == 0 && delta[1] == 0) {
+                    continue;
+                }
+                create.setLong(1, entry.getKey().entryId());
+                create.setString(2, entry.getKey().entryType().name());
+                create.addBatch();
+                add.setLong(1, delta[0]);
+                add.setLong(2, delta[1]);
+                add.setLong(3, entry.getKey().entryId());
+                add.setString(4, entry.getKey().entryType().name());
+                add.addBatch();
+            }
+            create.executeBatch();
+            add.executeBatch();
+        }
+    }
+
+    // After a failed batch, re-reads what the table really holds for each pair so a
+    // wrong stored state cannot fail every retry. Returns false if the database is down
+    private boolean rebase(List<Snapshot> changes) {
+        try {
+            Connection db = connection();
+            try (PreparedStatement select = db.prepareStatement("SELECT is_like, created_at FROM movie_comment_likes "
+                    + "WHERE user_id = ? AND movie_entry_id = ? AND entry_type = ?")) {
+                for (Snapshot change : changes) {
+                    Key key = change.key();
+                    select.setString(1, key.userId());
+                    select.setLong(2, key.entryId());
+                    select.setString(3, key.entryType().name());
+                    Boolean actual;
+                    LocalDateTime actualAt;
+                    try (ResultSet row = select.executeQuery()) {
+                        boolean found = row.next();
+                        actual = found ? row.getBoolean(1) : null;
+                        Timestamp createdAt = found ? row.getTimestamp(2) : null;
+                        actualAt = createdAt != null ? createdAt.toLocalDateTime() : null;
+                    }
+                    pending.computeIfPresent(key, (k, p) -> {
+                        p.storedAt = actualAt;
+                        if (!Objects.equals(p.stored, actual)) {
+                            adjustUnflushed(k, p.stored, p.desired, actual, p.desired);
+                            p.stored = actual;
+                            rebased.incrementAndGet();
+                        }
+                        return p;
+                    });
+                }
+            }
+            db.commit();
+            return true;
+        } catch (SQLException e) {
+            closeConnection();
+            return false;
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null) {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+        }
+        return connection;
+    }
+
+    private void closeConnection() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+            }
+            connection = null;
+        }
+    }
+
+    private void sleepBeforeRetry() {
+        try {
+            Thread.sleep(Math.max(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos), 100));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Moves the pair's share of the entry's unflushed counts from (stored, desired) to (newStored, newDesired)
+    private void adjustUnflushed(Key key, Boolean stored, Boolean desired, Boolean newStored, Boolean newDesired) {
+        long[] change = new long[2];
+        addContribution(change, stored, desired, -1);
+        addContribution(change, newStored, newDesired, 1);
+        if (change[0] == 0 && change[1] == 0) {
+            return;
+        }
+        unflushed.compute(new EntryKey(key.entryId(), key.entryType()), (k, delta) -> {
+            long[] updated = delta != null ? delta.clone() : new long[2];
+            updated[0] += change[0];
+            updated[1] += change[1];
+            return updated[0] == 0 && updated[1] == 0 ? null : updated;
+        });
+    }
+
+    private static void addContribution(long[] delta, Boolean stored, Boolean desired, int sign) {
+        delta[0] += sign * ((Boolean.TRUE.equals(desired) ? 1 : 0) - (Boolean.TRUE.equals(stored) ? 1 : 0));
+        delta[1] += sign * ((Boolean.FALSE.equals(desired) ? 1 : 0) - (Boolean.FALSE.equals(stored) ? 1 : 0));
+    }
+
+    private static void expectOneRowEach(int[] results) throws SQLException {
+        for (int rows : results) {
+            if (rows != 1 && rows != PreparedStatement.SUCCESS_NO_INFO) {
+                throw new SQLException("Reaction row changed underneath the write-behind queue");
+            }
+        }
+    }
+}
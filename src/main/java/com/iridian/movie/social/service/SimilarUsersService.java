@@ -0,0 +1,150 @@
+package com.iridian.movie.social.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.iridian.movie.social.model.EntryType;
+import com.iridian.movie.social.repository.MovieCommentLikeRepository;
+import com.iridian.movie.social.util.AfterCommit;
+import com.iridian.movie.social.util.LikeSimilarityIndex;
+
+/**
+ * Users with similar taste, answered from an in-memory LikeSimilarityIndex of who
+ * likes what instead of self-joining movie_comment_likes on every request.
+ *
+ * The index is built by streaming every like once the application has started and
+ * rebuilt on an interval, which also picks up rows removed without going through
+ * MovieCommentLikeService. In between, each committed like change is applied as it
+ * happens. Changes committed while a rebuild is streaming are replayed onto the new
+ * index before it replaces the old one.
+ */
+@Service
+public class SimilarUsersService {
+
+    private record Change(String userId, EntryType entryType, long entryId, boolean liked) {
+    }
+
+    private final MovieCommentLikeRepository likeRepository;
+    private final boolean enabled;
+
+    private volatile LikeSimilarityIndex index = new LikeSimilarityIndex();
+    private volatile boolean ready;
+    // Non-null while a rebuild is streaming; guarded by this
+    private List<Change> missed;
+
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private volatile long lastRebuildMillis;
+
+    public SimilarUsersService(MovieCommentLikeRepository likeRepository,
+            @Value("${reactions.similar.enabled:true}") boolean enabled) {
+        this.likeRepository = likeRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    // Call inside the transaction that changes the reaction; applied once it commits
+    public void changed(String userId, Long entryId, EntryType entryType, boolean liked) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> apply(new Change(userId, entryType, entryId, liked)));
+    }
+
+    public void removeEntry(Long entryId, EntryType entryType) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                index.removeEntry(entryType, entryId);
+                if (missed != null) {
+                    missed.add(new Change(null, entryType, entryId, false));
+                }
+            }
+        });
+    }
+
+    public List<LikeSimilarityIndex.Match> similarTo(String userId, int limit, boolean byJaccard) {
+        queries.incrementAndGet();
+        return index.similarTo(userId, limit, byJaccard);
+    }
+
+    @Scheduled(initialDelayString = "${reactions.similar.initial-delay:5s}",
+            fixedDelayString = "${reactions.similar.rebuild-interval:6h}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        synchronized (this) {
+            missed = new ArrayList<>();
+        }
+        LikeSimilarityIndex built = new LikeSimilarityIndex();
+        try (Stream<Object[]> likes = likeRepository.streamLikes()) {
+            likes.forEach(row -> built.append((String) row[0], (EntryType) row[1], (Long) row[2]));
+        } catch (Exception e) {
+            synchronized (this) {
+                missed = null;
+            }
+            System.err.println("Similar-users index rebuild failed: " + e.getMessage());
+            return;
+        }
+        built.compact();
+
+        int replayed;
+        synchronized (this) {
+            replayed = missed.size();
+            missed.forEach(change -> replay(built, change));
+            missed = null;
+            index = built;
+        }
+        ready = true;
+        rebuilds.incrementAndGet();
+        lastRebuildMillis = System.currentTimeMillis() - started;
+        System.out.println("Similar-users index built in " + lastRebuildMillis + " ms: "
+                + built.getStats() + ", replayed " + replayed + " changes");
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>(index.getStats());
+        stats.put("enabled", enabled);
+        stats.put("ready", ready);
+        stats.put("changes", changes.get());
+        stats.put("queries", queries.get());
+        stats.put("rebuilds", rebuilds.get());
+        stats.put("lastRebuildMillis", lastRebuildMillis);
+        return stats;
+    }
+
+    private synchronized void apply(Change change) {
+        replay(index, change);
+        if (missed != null) {
+            missed.add(change);
+        }
+        changes.incrementAndGet();
+    }
+
+    // A change without a user is an entry removal
+    private static void replay(LikeSimilarityIndex target, Change change) {
+        if (change.userId() == null) {
+            target.removeEntry(change.entryType(), change.entryId());
+        } else {
+            target.set(change.userId(), change.entryType(), change.entryId(), change.liked());
+        }
+    }
+}
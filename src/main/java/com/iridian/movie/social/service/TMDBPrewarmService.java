@@ -0,0 +1,122 @@
+package com.iridian.movie.social.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.iridian.movie.social.dto.TMDBPayload;
+import com.iridian.movie.social.util.GenreMap;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@ConditionalOnProperty(prefix = "tmdb.prewarm", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TMDBPrewarmService {
+
+    private final TMDBService tmdbService;
+    private final DiscoverPoolService discoverPool;
+    private final int popularPages;
+    private final int upcomingPages;
+    private final int concurrency;
+    private final Duration stagger;
+    private final Duration horizon;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong cycles = new AtomicLong();
+    private final AtomicLong refreshed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile long lastCycleMillis;
+
+    public TMDBPrewarmService(TMDBService tmdbService,
+            DiscoverPoolService discoverPool,
+            @Value("${tmdb.prewarm.popular-pages:3}") int popularPages,
+            @Value("${tmdb.prewarm.upcoming-pages:0}") int upcomingPages,
+            @Value("${tmdb.prewarm.concurrency:2}") int concurrency,
+            @Value("${tmdb.prewarm.stagger:250ms}") Duration stagger,
+            @Value("${tmdb.prewarm.interval:4m}") Duration interval) {
+        this.tmdbService = tmdbService;
+        this.discoverPool = discoverPool;
+        this.popularPages = popularPages;
+        this.upcomingPages = upcomingPages;
+        this.concurrency = Math.max(1, concurrency);
+        this.stagger = stagger;
+        // Anything that would expire before the next cycle gets refreshed in this one
+        this.horizon = interval.plus(interval.dividedBy(2));
+    }
+
+    @Scheduled(initialDelayString = "${tmdb.prewarm.initial-delay:10s}",
+            fixedDelayString = "${tmdb.prewarm.interval:4m}")
+    public void prewarm() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+
+        Flux.fromIterable(buildTasks())
+                .delayElements(stagger)
+                .flatMap(task -> task.get()
+                        .doOnNext(this::record)
+                        .onErrorResume(error -> {
+                            failures.incrementAndGet();
+                            System.err.println("TMDB prewarm request failed: " + error.getMessage());
+                            return Mono.empty();
+                        }), concurrency)
+                .doFinally(signal -> {
+                    lastCycleMillis = System.currentTimeMillis() - start;
+                    cycles.incrementAndGet();
+                    running.set(false);
+                })
+                .subscribe();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("cycles", cycles.get());
+        stats.put("refreshed", refreshed.get());
+        stats.put("skippedFresh", skipped.get());
+        stats.put("failures", failures.get());
+        stats.put("running", running.get());
+        stats.put("lastCycleMillis", lastCycleMillis);
+        return stats;
+    }
+
+    private List<Supplier<Mono<TMDBPayload>>> buildTasks() {
+        List<Supplier<Mono<TMDBPayload>>> tasks = new ArrayList<>();
+        tasks.add(() -> tmdbService.warmGenres(horizon));
+        for (int page = 1; page <= popularPages; page++) {
+            int p = page;
+            tasks.add(() -> tmdbService.warmPopularMovies(p, horizon));
+        }
+        for (int page = 1; page <= upcomingPages; page++) {
+            int p = page;
+            tasks.add(() -> tmdbService.warmUpcomingMovies(p, horizon));
+        }
+        // The discover pool already answers genre pages without TMDB
+        if (!discoverPool.isEnabled()) {
+            for (Integer genreId : GenreMap.ids()) {
+                tasks.add(() -> tmdbService.warmMoviesByGenre(genreId, 1, horizon));
+            }
+        }
+        return tasks;
+    }
+
+    private void record(TMDBPayload payload) {
+        if (TMDBPayload.HIT.equals(payload.getCacheStatus())) {
+            skipped.incrementAndGet();
+        } else {
+            refreshed.incrementAndGet();
+        }
+    }
+}
@@ -1,146 +1,223 @@
 package com.iridian.movie.social.service;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.iridian.movie.social.dto.TMDBPayload;
+import com.iridian.movie.social.util.CircuitBreaker;
+import com.iridian.movie.social.util.ConnectionPoolStats;
+import com.iridian.movie.social.util.SingleFlight;
+import com.iridian.movie.social.util.TMDBProjection;
+import com.iridian.movie.social.util.TMDBResponseCache;
+import com.iridian.movie.social.util.TokenBucket;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Service
 public class TMDBService {
 
+    public static final ZoneId UPCOMING_ZONE = ZoneId.of("America/New_York");
+
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+
     private final WebClient webClient;
+    private final TMDBResponseCache cache;
+    private final MovieCatalogService movieCatalog;
+    private final MovieSearchIndexService searchIndex;
+    private final SingleFlight<TMDBResponseCache.Entry> singleFlight = new SingleFlight<>();
+    private final CircuitBreaker circuitBreaker;
+    private final TokenBucket rateLimiter;
+    private final ConnectionPoolStats connectionPoolStats;
+    private final Duration genresTtl;
+    private final Duration detailsTtl;
+    private final Duration discoverTtl;
+    private final Duration staleWhileRevalidate;
+    private final Duration callTimeout;
+    private final int batchParallelism;
+
+    private final AtomicLong staleServed = new AtomicLong();
+    private final AtomicLong backgroundRefreshes = new AtomicLong();
+    private final AtomicLong skippedRefreshes = new AtomicLong();
+    private final AtomicLong projectionsComputed = new AtomicLong();
+    private final AtomicLong projectionHits = new AtomicLong();
 
     public TMDBService(WebClient.Builder webClientBuilder,
+            ClientHttpConnector tmdbHttpConnector,
+            ConnectionPoolStats tmdbConnectionPoolStats,
+            TMDBResponseCache cache,
+            CircuitBreaker tmdbCircuitBreaker,
+            TokenBucket tmdbRateLimiter,
+            MovieCatalogService movieCatalog,
+            MovieSearchIndexService searchIndex,
             @Value("${tmdb.api.url}") String apiUrl,
-            @Value("${tmdb.api.token}") String apiToken) {
+            @Value("${tmdb.api.token}") String apiToken,
+            @Value("${tmdb.cache.ttl.genres:6h}") Duration genresTtl,
+            @Value("${tmdb.cache.ttl.details:30m}") Duration detailsTtl,
+            @Value("${tmdb.cache.ttl.discover:5m}") Duration discoverTtl,
+            @Value("${tmdb.cache.stale-while-revalidate:1m}") Duration staleWhileRevalidate,
+            @Value("${tmdb.client.timeout:5s}") Duration callTimeout,
+            @Value("${tmdb.details.batch.parallelism:8}") int batchParallelism) {
 
         this.webClient = webClientBuilder
+                .clientConnector(tmdbHttpConnector)
+                .filter(tmdbConnectionPoolStats.acquireTimer())
                 .baseUrl(apiUrl)
                 .defaultHeader("Authorization", "Bearer " + apiToken)
                 .build();
+        this.cache = cache;
+        this.genresTtl = genresTtl;
+        this.detailsTtl = detailsTtl;
+        this.discoverTtl = discoverTtl;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.callTimeout = callTimeout;
+        this.batchParallelism = Math.max(1, batchParallelism);
+        this.circuitBreaker = tmdbCircuitBreaker;
+        this.rateLimiter = tmdbRateLimiter;
+        this.connectionPoolStats = tmdbConnectionPoolStats;
+        this.movieCatalog = movieCatalog;
+        this.searchIndex = searchIndex;
     }
 
     public String searchMovies(String id) {
-        return webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                .path("/search/movie")
-                .queryParam("query", id)
-                .build())
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
+        return searchMoviesAsync(id).map(TMDBPayload::asString).block();
+    }
+
+    public Mono<TMDBPayload> searchMoviesAsync(String query) {
+        return Mono.defer(() -> {
+            byte[] local = searchIndex.search(query);
+            if (local != null) {
+                return Mono.just(new TMDBPayload(TMDBResponseCache.Entry.uncached(local), TMDBPayload.LOCAL));
+            }
+            Map<String, Object> params = new LinkedHashMap<>();
+            params.put("query", query);
+            return fetch("/search/movie", params, null);
+        });
     }
 
     public String getPopularMovies(Integer page) {
-        return webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                .path("/discover/movie")
-                .queryParam("include_adult", "false")
-                .queryParam("include_video", "false")
-                .queryParam("language", "en-US")
-                .queryParam("page", page != null ? page : 1)
-                .queryParam("certification_country", "US")
-                .queryParam("sort_by", "popularity.desc")
-                .queryParam("certification.lte", "PG-13")
-                .build())
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
+        return getPopularMoviesAsync(page).map(TMDBPayload::asString).block();
     }
 
     public String getPopularMovies() {
         return getPopularMovies(1);
     }
 
+    public Mono<TMDBPayload> getPopularMoviesAsync(Integer page) {
+        return fetch("/discover/movie", discoverParams(page), discoverTtl);
+    }
+
+    // Uncached page of the popular list, for callers that keep their own copy
+    public Mono<TMDBPayload> getDiscoverPoolPage(int page) {
+        return fetch("/discover/movie", discoverParams(page), null);
+    }
+
     public String getUpcomingMovies(Integer page) {
-        ZoneId zone = ZoneId.of("America/New_York");
-        LocalDate startDate = LocalDate.now(zone);
-        LocalDate endDate = startDate.plusMonths(1).with(TemporalAdjusters.lastDayOfMonth());
-
-        return webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                .path("/discover/movie")
-                .queryParam("include_adult", "false")
-                .queryParam("include_video", "false")
-                .queryParam("language", "en-US")
-                .queryParam("page", page != null ? page : 1)
-                .queryParam("certification_country", "US")
-                .queryParam("sort_by", "popularity.desc")
-                .queryParam("certification.lte", "PG-13")
-                .queryParam("primary_release_date.gte", startDate.toString())
-                .queryParam("primary_release_date.lte", endDate.toString())
-                .build()
-                )
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
+        return getUpcomingMoviesAsync(page).map(TMDBPayload::asString).block();
     }
 
     public String getUpcomingMovies() {
         return getUpcomingMovies(1);
     }
 
+    public Mono<TMDBPayload> getUpcomingMoviesAsync(Integer page) {
+        return fetch("/discover/movie", upcomingParams(page), discoverTtl);
+    }
+
+    // One page of a fixed release window, fetched without caching; callers keep the result themselves
+    public Mono<TMDBPayload> getUpcomingWindowPage(LocalDate startDate, LocalDate endDate, int page) {
+        return fetch("/discover/movie", upcomingParams(startDate, endDate, page), null);
+    }
+
+    public static LocalDate upcomingWindowEnd(LocalDate startDate) {
+        return startDate.plusMonths(1).with(TemporalAdjusters.lastDayOfMonth());
+    }
+
     public String getUpcomingMoviesByGenre(Integer genreId, Integer page) {
-        ZoneId zone = ZoneId.of("America/New_York");
-        LocalDate startDate = LocalDate.now(zone);
-        LocalDate endDate = startDate.plusMonths(1).with(TemporalAdjusters.lastDayOfMonth());
-
-        return webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                .path("/discover/movie")
-                .queryParam("include_adult", "false")
-                .queryParam("include_video", "false")
-                .queryParam("language", "en-US")
-                .queryParam("page", page != null ? page : 1)
-                .queryParam("certification_country", "US")
-                .queryParam("sort_by", "popularity.desc")
-                .queryParam("certification.lte", "PG-13")
-                .queryParam("with_genres", genreId.toString())
-                .queryParam("primary_release_date.gte", startDate.toString())
-                .queryParam("primary_release_date.lte", endDate.toString())
-                .build()
-                )
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
+        return getUpcomingMoviesByGenreAsync(genreId, page).map(TMDBPayload::asString).block();
+    }
+
+    public Mono<TMDBPayload> getUpcomingMoviesByGenreAsync(Integer genreId, Integer page) {
+        Map<String, Object> params = upcomingParams(page);
+        params.put("with_genres", genreId.toString());
+        return fetch("/discover/movie", params, discoverTtl);
     }
 
     public String getMovieDetails(Number id) {
-        return webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                .path("/movie/{movie_id}")
-                .queryParam("id", id)
-                .build(id))
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
+        return getMovieDetailsAsync(id).map(TMDBPayload::asString).block();
     }
 
-    public String getMoviesByGenres(List<Integer> genreIds, Integer page) {
-        String genreIdsStr = genreIds.stream()
-                .map(String::valueOf)
-                .reduce((a, b) -> a + "," + b)
-                .orElse("");
+    public Mono<TMDBPayload> getMovieDetailsAsync(Number id) {
+        Long movieId = id.longValue();
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("id", id);
+        TMDBCall call = new TMDBCall("/movie/" + id, params, detailsTtl, body -> movieCatalog.store(movieId, body));
+        return fetchFromCatalog(call, movieId);
+    }
+
+    // Resolves every id concurrently through the same cache, catalog and single-flight path
+    // as single lookups; failures become per-id error objects in the combined array
+    public Mono<byte[]> getMovieDetailsBatchAsync(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        return Flux.fromIterable(distinctIds)
+                .flatMapSequential(id -> getMovieDetailsAsync(id)
+                        .map(TMDBPayload::getBody)
+                        .defaultIfEmpty(batchError(id, 404, "not_found"))
+                        .onErrorResume(error -> Mono.just(batchError(id, error))),
+                        batchParallelism)
+                .collectList()
+                .map(TMDBService::toJsonArray);
+    }
 
-        return webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                .path("/discover/movie")
-                .queryParam("include_adult", "false")
-                .queryParam("include_video", "false")
-                .queryParam("language", "en-US")
-                .queryParam("page", page != null ? page : 1)
-                .queryParam("certification_country", "US")
-                .queryParam("sort_by", "popularity.desc")
-                .queryParam("certification.lte", "PG-13")
-                .queryParam("with_genres", genreIdsStr)
-                .build())
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
+    // The slimmed body is cached next to the full one and shares its lifetime,
+    // so the projection runs once per cache fill
+    public TMDBPayload project(TMDBPayload payload, Set<String> fields) {
+        if (fields.isEmpty()) {
+            return payload;
+        }
+        TMDBResponseCache.Entry source = payload.getEntry();
+        if (source.getKey() == null) {
+            projectionsComputed.incrementAndGet();
+            return new TMDBPayload(TMDBResponseCache.Entry.uncached(
+                    TMDBProjection.project(source.getBody(), fields)), payload.getCacheStatus());
+        }
+
+        String key = source.getKey() + "#fields=" + String.join(",", fields);
+        TMDBResponseCache.Entry projected = cache.getStale(key);
+        if (projected != null && projected.getStoredAt() == source.getStoredAt()) {
+            projectionHits.incrementAndGet();
+            return new TMDBPayload(projected, payload.getCacheStatus());
+        }
+        projectionsComputed.incrementAndGet();
+        projected = cache.putDerived(key, TMDBProjection.project(source.getBody(), fields), source);
+        return new TMDBPayload(projected, payload.getCacheStatus());
+    }
+
+    public String getMoviesByGenres(List<Integer> genreIds, Integer page) {
+        return getMoviesByGenresAsync(genreIds, page).map(TMDBPayload::asString).block();
     }
 
     public String getMoviesByGenres(List<Integer> genreIds) {
@@ -151,11 +228,332 @@ public class TMDBService {
         return getMoviesByGenres(List.of(genreId), page);
     }
 
+    public Mono<TMDBPayload> getMoviesByGenresAsync(List<Integer> genreIds, Integer page) {
+        String genreIdsStr = genreIds.stream()
+                .map(String::valueOf)
+                .reduce((a, b) -> a + "," + b)
+                .orElse("");
+
+        Map<String, Object> params = discoverParams(page);
+        params.put("with_genres", genreIdsStr);
+        return fetch("/discover/movie", params, discoverTtl);
+    }
+
+    public Mono<TMDBPayload> getMoviesByGenreAsync(Integer genreId, Integer page) {
+        return getMoviesByGenresAsync(List.of(genreId), page);
+    }
+
     public String getGenres() {
-        return webClient.get()
-                .uri("/genre/movie/list")
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
+        return getGenresAsync().map(TMDBPayload::asString).block();
+    }
+
+    public Mono<TMDBPayload> getGenresAsync() {
+        return fetch("/genre/movie/list", Map.of(), genresTtl);
+    }
+
+    public Mono<TMDBPayload> warmPopularMovies(int page, Duration horizon) {
+        return warm("/discover/movie", discoverParams(page), discoverTtl, horizon);
+    }
+
+    public Mono<TMDBPayload> warmUpcomingMovies(int page, Duration horizon) {
+        return warm("/discover/movie", upcomingParams(page), discoverTtl, horizon);
+    }
+
+    public Mono<TMDBPayload> warmMoviesByGenre(int genreId, int page, Duration horizon) {
+        Map<String, Object> params = discoverParams(page);
+        params.put("with_genres", String.valueOf(genreId));
+        return warm("/discover/movie", params, discoverTtl, horizon);
+    }
+
+    public Mono<TMDBPayload> warmGenres(Duration horizon) {
+        return warm("/genre/movie/list", Map.of(), genresTtl, horizon);
+    }
+
+    public Map<String, Object> getCacheStats() {
+        return cache.getStats();
+    }
+
+    public Map<String, Object> getSingleFlightStats() {
+        return singleFlight.getStats();
+    }
+
+    public Map<String, Object> getResilienceStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("circuitBreaker", circuitBreaker.getStats());
+        stats.put("rateLimiter", rateLimiter.getStats());
+        stats.put("connectionPool", connectionPoolStats.getStats());
+        stats.put("staleServed", staleServed.get());
+        stats.put("backgroundRefreshes", backgroundRefreshes.get());
+        stats.put("skippedRefreshes", skippedRefreshes.get());
+        return stats;
+    }
+
+    public Map<String, Object> getProjectionStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("computed", projectionsComputed.get());
+        stats.put("cacheHits", projectionHits.get());
+        return stats;
+    }
+
+    public Map<String, Object> getCatalogStats() {
+        return movieCatalog.getStats();
+    }
+
+    public Map<String, Object> getSearchIndexStats() {
+        return searchIndex.getStats();
+    }
+
+    private Mono<TMDBPayload> fetch(String path, Map<String, Object> params, Duration ttl) {
+        return fetch(listCall(path, params, ttl));
+    }
+
+    // Discover pages feed the local search index as they come in from TMDB
+    private TMDBCall listCall(String path, Map<String, Object> params, Duration ttl) {
+        Consumer<byte[]> onFetched = path.startsWith("/discover/") ? searchIndex::indexTmdbResults : null;
+        return new TMDBCall(path, params, ttl, onFetched);
+    }
+
+    private Mono<TMDBPayload> fetch(TMDBCall call) {
+        return Mono.defer(() -> {
+            if (call.ttl == null) {
+                return singleFlight.execute(call.key, () -> request(call, false))
+                        .map(entry -> new TMDBPayload(entry, TMDBPayload.MISS));
+            }
+
+            TMDBResponseCache.Entry cached = cache.get(call.key);
+            if (cached != null) {
+                return Mono.just(new TMDBPayload(cached, TMDBPayload.HIT));
+            }
+
+            TMDBResponseCache.Entry stale = cache.getStale(call.key);
+            if (stale != null && shouldServeStale(stale)) {
+                refreshInBackground(call);
+                return Mono.just(serveStale(stale));
+            }
+
+            Mono<TMDBPayload> live = singleFlight.execute(call.key, () -> request(call, false))
+                    .map(entry -> new TMDBPayload(entry, TMDBPayload.MISS));
+            if (stale == null) {
+                return live;
+            }
+            return live.onErrorResume(this::isUpstreamFailure, error -> Mono.just(serveStale(stale)));
+        });
+    }
+
+    // Details fall back to the persistent catalog before going to TMDB, so a fresh
+    // deploy with an empty in-memory cache does not refetch every movie
+    private Mono<TMDBPayload> fetchFromCatalog(TMDBCall call, Long movieId) {
+        return Mono.defer(() -> {
+            if (cache.peek(call.key) != null) {
+                return fetch(call);
+            }
+            return movieCatalog.find(movieId)
+                    .map(record -> {
+                        TMDBResponseCache.Entry entry = cache.put(call.key,
+                                record.getPayload().getBytes(StandardCharsets.UTF_8), call.ttl);
+                        if (movieCatalog.isFresh(record)) {
+                            return new TMDBPayload(entry, TMDBPayload.HIT);
+                        }
+                        refreshInBackground(call);
+                        return new TMDBPayload(entry, TMDBPayload.STALE);
+                    })
+                    .switchIfEmpty(fetch(call));
+        });
+    }
+
+    // Re-fetches an entry unless it is still going to be fresh after the given horizon
+    private Mono<TMDBPayload> warm(String path, Map<String, Object> params, Duration ttl, Duration horizon) {
+        TMDBCall call = listCall(path, params, ttl);
+        return Mono.defer(() -> {
+            TMDBResponseCache.Entry current = cache.getStale(call.key);
+            if (current != null && current.isFresh(System.currentTimeMillis() + horizon.toMillis())) {
+                return Mono.just(new TMDBPayload(current, TMDBPayload.HIT));
+            }
+            return singleFlight.execute(call.key, () -> request(call, true))
+                    .map(entry -> new TMDBPayload(entry, TMDBPayload.MISS));
+        });
+    }
+
+    private Mono<TMDBResponseCache.Entry> request(TMDBCall call, boolean force) {
+        // A caller that lost the race to the previous flight may find the result already cached
+        if (call.ttl != null && !force) {
+            TMDBResponseCache.Entry cached = cache.peek(call.key);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+        }
+
+        return rateLimiter.acquire(Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                return Mono.error(new CircuitBreaker.OpenException("tmdb"));
+            }
+            long start = System.nanoTime();
+            return webClient.get()
+                    .uri(uriBuilder -> {
+                        uriBuilder.path(call.path);
+                        call.params.forEach(uriBuilder::queryParam);
+                        return uriBuilder.build();
+                    })
+                    .retrieve()
+                    .bodyToMono(byte[].class)
+                    .timeout(callTimeout)
+                    .doOnSuccess(body -> circuitBreaker.onSuccess(System.nanoTime() - start))
+                    .doOnError(error -> {
+                        if (countsAgainstBreaker(error)) {
+                            circuitBreaker.onError(System.nanoTime() - start);
+                        } else {
+                            circuitBreaker.onSuccess(System.nanoTime() - start);
+                        }
+                    })
+                    .doOnCancel(circuitBreaker::onCancel);
+        }))
+                .onErrorMap(WebClientResponseException.TooManyRequests.class, this::backOff)
+                .doOnNext(body -> {
+                    if (call.onFetched != null) {
+                        call.onFetched.accept(body);
+                    }
+                })
+                .map(body -> call.ttl != null
+                ? cache.put(call.key, body, call.ttl)
+                : TMDBResponseCache.Entry.uncached(body));
+    }
+
+    private static byte[] batchError(Long id, Throwable error) {
+        if (error instanceof WebClientResponseException responseError) {
+            int status = responseError.getStatusCode().value();
+            return batchError(id, status, status == 404 ? "not_found" : "upstream_error");
+        }
+        if (error instanceof TokenBucket.RejectedException) {
+            return batchError(id, 503, "rate_limited");
+        }
+        if (error instanceof CircuitBreaker.OpenException) {
+            return batchError(id, 503, "unavailable");
+        }
+        return batchError(id, 502, "upstream_error");
+    }
+
+    private static byte[] batchError(Long id, int status, String error) {
+        return ("{\"id\":" + id + ",\"status\":" + status + ",\"error\":\"" + error + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] toJsonArray(List<byte[]> elements) {
+        int size = 2 + Math.max(0, elements.size() - 1);
+        for (byte[] element : elements) {
+            size += element.length;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        out.write('[');
+        for (int i = 0; i < elements.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.writeBytes(elements.get(i));
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    private TokenBucket.RejectedException backOff(WebClientResponseException.TooManyRequests error) {
+        Duration retryAfter = parseRetryAfter(error.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        rateLimiter.pauseFor(retryAfter);
+        return new TokenBucket.RejectedException("tmdb", retryAfter);
+    }
+
+    private static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return DEFAULT_RETRY_AFTER;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException notSeconds) {
+            try {
+                ZonedDateTime until = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration remaining = Duration.between(ZonedDateTime.now(), until);
+                return remaining.isNegative() ? DEFAULT_RETRY_AFTER : remaining;
+            } catch (DateTimeParseException notADate) {
+                return DEFAULT_RETRY_AFTER;
+            }
+        }
+    }
+
+    private boolean shouldServeStale(TMDBResponseCache.Entry stale) {
+        return !circuitBreaker.isClosed()
+                || System.currentTimeMillis() - stale.getExpiresAt() <= staleWhileRevalidate.toMillis();
+    }
+
+    private TMDBPayload serveStale(TMDBResponseCache.Entry stale) {
+        staleServed.incrementAndGet();
+        return new TMDBPayload(stale, TMDBPayload.STALE);
+    }
+
+    // While the breaker is open every refresh would be rejected, so only the one that
+    // can be its half-open probe goes out
+    private void refreshInBackground(TMDBCall call) {
+        if (!circuitBreaker.isCallPermitted()) {
+            skippedRefreshes.incrementAndGet();
+            return;
+        }
+        backgroundRefreshes.incrementAndGet();
+        singleFlight.execute(call.key, () -> request(call, true))
+                .subscribe(entry -> {
+                }, error -> System.err.println("Background TMDB refresh failed for " + call.key + ": " + error.getMessage()));
+    }
+
+    // Client errors such as a 404 for an unknown movie say nothing about TMDB's health,
+    // and rate limiting is handled by the token bucket rather than the breaker
+    private boolean countsAgainstBreaker(Throwable error) {
+        if (error instanceof WebClientResponseException responseError) {
+            return responseError.getStatusCode().is5xxServerError();
+        }
+        return error instanceof TimeoutException
+                || error instanceof WebClientRequestException;
+    }
+
+    private boolean isUpstreamFailure(Throwable error) {
+        return countsAgainstBreaker(error)
+                || error instanceof CircuitBreaker.OpenException
+                || error instanceof TokenBucket.RejectedException;
+    }
+
+    private Map<String, Object> discoverParams(Integer page) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("include_adult", "false");
+        params.put("include_video", "false");
+        params.put("language", "en-US");
+        params.put("page", page != null ? page : 1);
+        params.put("certification_country", "US");
+        params.put("sort_by", "popularity.desc");
+        params.put("certification.lte", "PG-13");
+        return params;
+    }
+
+    private Map<String, Object> upcomingParams(Integer page) {
+        LocalDate startDate = LocalDate.now(UPCOMING_ZONE);
+        return upcomingParams(startDate, upcomingWindowEnd(startDate), page);
+    }
+
+    private Map<String, Object> upcomingParams(LocalDate startDate, LocalDate endDate, Integer page) {
+        Map<String, Object> params = discoverParams(page);
+        params.put("primary_release_date.gte", startDate.toString());
+        params.put("primary_release_date.lte", endDate.toString());
+        return params;
+    }
+
+    private static final class TMDBCall {
+
+        private final String key;
+        private final String path;
+        private final Map<String, Object> params;
+        private final Duration ttl;
+        private final Consumer<byte[]> onFetched;
+
+        private TMDBCall(String path, Map<String, Object> params, Duration ttl, Consumer<byte[]> onFetched) {
+            this.key = TMDBResponseCache.key(path, params);
+            this.path = path;
+            this.params = params;
+            this.ttl = ttl;
+            this.onFetched = onFetched;
+        }
     }
 }
@@ -0,0 +1,353 @@
+package com.iridian.movie.social.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.iridian.movie.social.model.EntryType;
+import com.iridian.movie.social.repository.MovieCommentLikeRepository;
+import com.iridian.movie.social.util.AfterCommit;
+
+/**
+ * Trending entries per EntryType from likes received over a sliding window (24h in
+ * hourly buckets by default), kept in memory and fed by committed reactions.
+ *
+ * Each type keeps a bucket ring per entry and a min-heap of its top-K entries. A
+ * reaction updates one bucket and the heap in O(K); serving up to K entries only sorts
+ * the heap, and longer lists score every entry in the window. Scores change for
+ * everyone only when the window moves to a new bucket, which rebuilds the heap from
+ * all entries. Nothing is served until the window has been seeded. With scoring=decay a bucket's likes are
+ * weighted by 0.5^(age / half-life) instead of counting equally.
+ *
+ * A like is dated by its row's created_at, both when it is counted and when it is
+ * removed or switched to a dislike, so it only ever leaves the bucket it was counted
+ * in, and a like from before the window is not taken off the window at all. The
+ * window is seeded at startup from the rows whose created_at falls inside it.
+ */
+@Service
+public class TrendingService {
+
+    public static class NotReadyException extends RuntimeException {
+
+        public NotReadyException(String message) {
+            super(message);
+        }
+    }
+
+    private record Ranked(long entryId, double score) {
+    }
+
+    private static final Comparator<Ranked> BY_SCORE = Comparator.comparingDouble(Ranked::score)
+            .thenComparing(Ranked::entryId, Comparator.reverseOrder());
+
+    private final class Window {
+
+        final Map<Long, int[]> buckets = new HashMap<>();
+        final PriorityQueue<Ranked> heap = new PriorityQueue<>(BY_SCORE);
+        final Map<Long, Ranked> ranked = new HashMap<>();
+        // A top entry lost score; an entry outside the heap may now beat it
+        boolean stale;
+
+        void add(long entryId, long bucket, int likes) {
+            int[] ring = buckets.computeIfAbsent(entryId, id -> new int[bucketCount]);
+            ring[slot(bucket)] += likes;
+            double score = score(ring);
+            Ranked previous = ranked.remove(entryId);
+            if (previous != null) {
+                heap.remove(previous);
+                stale |= score < previous.score();
+            }
+            if (score > 0) {
+                offer(new Ranked(entryId, score));
+            }
+        }
+
+        void offer(Ranked entry) {
+            if (heap.size() < topK) {
+                heap.add(entry);
+                ranked.put(entry.entryId(), entry);
+            } else if (BY_SCORE.compare(entry, heap.peek()) > 0) {
+                ranked.remove(heap.poll().entryId());
+                heap.add(entry);
+                ranked.put(entry.entryId(), entry);
+            }
+        }
+
+        void rebuild() {
+            heap.clear();
+            ranked.clear();
+            for (Map.Entry<Long, int[]> entry : buckets.entrySet()) {
+                double score = score(entry.getValue());
+                if (score > 0) {
+                    offer(new Ranked(entry.getKey(), score));
+                }
+            }
+            stale = false;
+            rebuilds.incrementAndGet();
+        }
+
+        // Clears the buckets that fell out of the window and drops entries left empty
+        void expire(long fromBucket, long toBucket) {
+            long cleared = Math.min(toBucket - fromBucket, bucketCount);
+            Iterator<int[]> rings = buckets.values().iterator();
+            while (rings.hasNext()) {
+                int[] ring = rings.next();
+                for (long i = 1; i <= cleared; i++) {
+                    ring[slot(fromBucket + i)] = 0;
+                }
+                boolean empty = true;
+                for (int count : ring) {
+                    empty &= count == 0;
+                }
+                if (empty) {
+                    rings.remove();
+                }
+            }
+        }
+
+        double score(int[] ring) {
+            double score = 0;
+            for (int age = 0; age < bucketCount; age++) {
+                score += ring[slot(currentBucket - age)] * weights[age];
+            }
+            return score;
+        }
+    }
+
+    private final MovieCommentLikeRepository likeRepository;
+    private final boolean enabled;
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final int topK;
+    private final boolean decay;
+    // Weight of a bucket by age, newest first
+    private final double[] weights;
+    private final long startedAt = System.currentTimeMillis();
+
+    private final Map<EntryType, Window> windows = new EnumMap<>(EntryType.class);
+    private long currentBucket;
+    private volatile boolean seeded;
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    public TrendingService(MovieCommentLikeRepository likeRepository,
+            @Value("${reactions.trending.enabled:true}") boolean enabled,
+            @Value("${reactions.trending.window:24h}") Duration window,
+            @Value("${reactions.trending.bucket:1h}") Duration bucket,
+            @Value("${reactions.trending.top-k:50}") int topK,
+            @Value("${reactions.trending.scoring:count}") String scoring,
+            @Value("${reactions.trending.half-life:6h}") Duration halfLife) {
+        if (!"count".equalsIgnoreCase(scoring) && !"decay".equalsIgnoreCase(scoring)) {
+            throw new IllegalArgumentException("reactions.trending.scoring must be count or decay, was " + scoring);
+        }
+        this.likeRepository = likeRepository;
+        this.enabled = enabled;
+        this.bucketMillis = Math.max(1000, bucket.toMillis());
+        this.bucketCount = (int) Math.max(1, window.toMillis() / bucketMillis);
+        this.topK = Math.max(1, topK);
+        this.decay = "decay".equalsIgnoreCase(scoring);
+        this.weights = new double[bucketCount];
+        for (int age = 0; age < bucketCount; age++) {
+            weights[age] = decay ? Math.pow(0.5, (double) age * bucketMillis / halfLife.toMillis()) : 1.0;
+        }
+        for (EntryType type : EntryType.values()) {
+            windows.put(type, new Window());
+        }
+        this.currentBucket = startedAt / bucketMillis;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Call inside the transaction that adds (+1) or takes away (-1) a like created at
+    // likedAt, the row's created_at; recorded once it commits
+    public void changed(Long entryId, EntryType entryType, int likeDelta, LocalDateTime likedAt) {
+        if (enabled && likeDelta != 0) {
+            AfterCommit.run(() -> record(entryId, entryType, likeDelta, likedAt));
+        }
+    }
+
+    // For changes committed outside a Spring transaction, such as write-behind flushes
+    public void record(Long entryId, EntryType entryType, int likeDelta, LocalDateTime likedAt) {
+        if (!enabled || likeDelta == 0 || likedAt == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long bucket = Math.min(toMillis(likedAt), now) / bucketMillis;
+        synchronized (this) {
+            advance(now);
+            Window window = windows.get(entryType);
+            // Nothing to take away from an entry the window never counted
+            if (bucket <= currentBucket - bucketCount || (likeDelta < 0 && !window.buckets.containsKey(entryId))) {
+                return;
+            }
+            window.add(entryId, bucket, likeDelta);
+        }
+        recorded.incrementAndGet();
+    }
+
+    // Call inside the transaction that deletes the entry
+    public void removeEntry(Long entryId, EntryType entryType) {
+        if (enabled) {
+            AfterCommit.run(() -> remove(entryId, entryType));
+        }
+    }
+
+    private synchronized void remove(Long entryId, EntryType entryType) {
+        Window window = windows.get(entryType);
+        if (window.buckets.remove(entryId) != null && window.ranked.containsKey(entryId)) {
+            window.rebuild();
+        }
+    }
+
+    // Rows of {entryId, likes in the window, score}, best first. Up to top-k comes from
+    // the heap; longer lists score every entry in the window
+    public List<Object[]> top(EntryType entryType, int limit) {
+        if (!seeded) {
+            throw new NotReadyException("Trending window is still loading");
+        }
+        List<Ranked> best;
+        Map<Long, Integer> likes = new HashMap<>();
+        synchronized (this) {
+            advance(System.currentTimeMillis());
+            Window window = windows.get(entryType);
+            if (limit <= topK) {
+                if (window.stale) {
+                    window.rebuild();
+                }
+                best = new ArrayList<>(window.heap);
+            } else {
+                best = new ArrayList<>(window.buckets.size());
+                for (Map.Entry<Long, int[]> entry : window.buckets.entrySet()) {
+                    double score = window.score(entry.getValue());
+                    if (score > 0) {
+                        best.add(new Ranked(entry.getKey(), score));
+                    }
+                }
+            }
+            best.sort(BY_SCORE.reversed());
+            if (best.size() > limit) {
+                best = best.subList(0, limit);
+            }
+            for (Ranked entry : best) {
+                int total = 0;
+                for (int count : window.buckets.get(entry.entryId())) {
+                    total += count;
+                }
+                likes.put(entry.entryId(), total);
+            }
+        }
+        served.incrementAndGet();
+        List<Object[]> rows = new ArrayList<>(best.size());
+        for (Ranked entry : best) {
+            rows.add(new Object[]{entry.entryId(), (long) likes.get(entry.entryId()), entry.score()});
+        }
+        return rows;
+    }
+
+    // Seeds the window on the first run, then keeps it moving when there is no traffic
+    @Scheduled(initialDelayString = "${reactions.trending.initial-delay:5s}",
+            fixedDelayString = "${reactions.trending.maintenance-interval:1m}")
+    @Transactional(readOnly = true)
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        if (!seeded) {
+            seed();
+        }
+        synchronized (this) {
+            advance(System.currentTimeMillis());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        Map<String, Integer> entries = new HashMap<>();
+        synchronized (this) {
+            windows.forEach((type, window) -> entries.put(type.name(), window.buckets.size()));
+        }
+        stats.put("enabled", enabled);
+        stats.put("seeded", seeded);
+        stats.put("scoring", decay ? "decay" : "count");
+        stats.put("buckets", bucketCount);
+        stats.put("bucketMillis", bucketMillis);
+        stats.put("topK", topK);
+        stats.put("entries", entries);
+        stats.put("recorded", recorded.get());
+        stats.put("served", served.get());
+        stats.put("rebuilds", rebuilds.get());
+        return stats;
+    }
+
+    private void seed() {
+        try {
+            long since = (currentBucket() - bucketCount + 1) * bucketMillis;
+            // Likes after startedAt reached record() already
+            List<Object[]> rows = likeRepository.findLikesCreatedBetween(toLocal(since), toLocal(startedAt));
+            synchronized (this) {
+                advance(System.currentTimeMillis());
+                for (Object[] row : rows) {
+                    long bucket = toMillis((LocalDateTime) row[2]) / bucketMillis;
+                    if (bucket > currentBucket - bucketCount) {
+                        windows.get((EntryType) row[1]).buckets
+                                .computeIfAbsent((Long) row[0], id -> new int[bucketCount])[slot(bucket)]++;
+                    }
+                }
+                windows.values().forEach(Window::rebuild);
+            }
+            seeded = true;
+            System.out.println("Trending window seeded with " + rows.size() + " likes");
+        } catch (Exception e) {
+            System.err.println("Trending window seeding failed: " + e.getMessage());
+        }
+    }
+
+    // Moves every window to the bucket containing now; callers hold the lock
+    private void advance(long now) {
+        long bucket = now / bucketMillis;
+        if (bucket <= currentBucket) {
+            return;
+        }
+        long previous = currentBucket;
+        currentBucket = bucket;
+        for (Window window : windows.values()) {
+            window.expire(previous, bucket);
+            window.rebuild();
+        }
+    }
+
+    private long currentBucket() {
+        return System.currentTimeMillis() / bucketMillis;
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) bucketCount);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocal(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
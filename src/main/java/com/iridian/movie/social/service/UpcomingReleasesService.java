@@ -0,0 +1,206 @@
+package com.iridian.movie.social.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.iridian.movie.social.dto.TMDBPayload;
+import com.iridian.movie.social.util.SingleFlight;
+import com.iridian.movie.social.util.TMDBResponseCache;
+import com.iridian.movie.social.util.TMDBResultPage;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps every upcoming release for the current window (today until the end of next
+ * month, New York time) in memory. The window is fetched once per day; genre and
+ * page views are cut from it locally instead of asking TMDB per genre and page.
+ */
+@Service
+public class UpcomingReleasesService {
+
+    private final TMDBService tmdbService;
+    private final TMDBResponseCache cache;
+    private final SingleFlight<Window> singleFlight = new SingleFlight<>();
+    private final boolean enabled;
+    private final int maxPages;
+    private final int pageSize;
+    private final int concurrency;
+
+    private volatile Window window;
+
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong localPages = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public UpcomingReleasesService(TMDBService tmdbService,
+            TMDBResponseCache cache,
+            @Value("${tmdb.upcoming.window.enabled:true}") boolean enabled,
+            @Value("${tmdb.upcoming.window.max-pages:25}") int maxPages,
+            @Value("${tmdb.upcoming.window.page-size:20}") int pageSize,
+            @Value("${tmdb.upcoming.window.concurrency:4}") int concurrency) {
+        this.tmdbService = tmdbService;
+        this.cache = cache;
+        this.enabled = enabled;
+        this.maxPages = Math.max(1, maxPages);
+        this.pageSize = Math.max(1, pageSize);
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    public Mono<TMDBPayload> getUpcoming(Integer genreId, Integer page) {
+        int pageNumber = page != null && page > 0 ? page : 1;
+        if (!enabled) {
+            return fetchFromTmdb(genreId, pageNumber);
+        }
+        // Only a failed window load falls back here; a failed TMDB fallback is not retried
+        return currentWindow()
+                .map(Optional::of)
+                .onErrorResume(error -> Mono.just(Optional.empty()))
+                .flatMap(current -> {
+                    if (current.isEmpty() || !servesLocally(current.get(), genreId, pageNumber)) {
+                        fallbacks.incrementAndGet();
+                        return fetchFromTmdb(genreId, pageNumber);
+                    }
+                    localPages.incrementAndGet();
+                    return Mono.just(render(current.get(), genreId, pageNumber));
+                });
+    }
+
+    // A truncated window is missing movies, so genre views and pages past what we
+    // pulled in are still TMDB's to answer
+    private static boolean servesLocally(Window current, Integer genreId, int page) {
+        return !current.truncated || (genreId == null && page <= current.pagesLoaded);
+    }
+
+    // Runs just after midnight in the release zone, when the window moves by a day
+    @Scheduled(cron = "${tmdb.upcoming.window.refresh-cron:5 0 0 * * *}", zone = "America/New_York")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        currentWindow().subscribe(
+                loaded -> { },
+                error -> System.err.println("Upcoming releases refresh failed: " + error.getMessage()));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        Window current = window;
+        stats.put("enabled", enabled);
+        stats.put("windowStart", current != null ? current.startDate.toString() : null);
+        stats.put("windowEnd", current != null ? current.endDate.toString() : null);
+        stats.put("movies", current != null ? current.movies.size() : 0);
+        stats.put("pagesLoaded", current != null ? current.pagesLoaded : 0);
+        stats.put("truncated", current != null && current.truncated);
+        stats.put("loads", loads.get());
+        stats.put("loadFailures", loadFailures.get());
+        stats.put("localPages", localPages.get());
+        stats.put("fallbacks", fallbacks.get());
+        return stats;
+    }
+
+    private Mono<TMDBPayload> fetchFromTmdb(Integer genreId, int page) {
+        return genreId != null
+                ? tmdbService.getUpcomingMoviesByGenreAsync(genreId, page)
+                : tmdbService.getUpcomingMoviesAsync(page);
+    }
+
+    private Mono<Window> currentWindow() {
+        LocalDate today = LocalDate.now(TMDBService.UPCOMING_ZONE);
+        Window current = window;
+        if (current != null && current.startDate.equals(today)) {
+            return Mono.just(current);
+        }
+        Mono<Window> load = singleFlight.execute(today.toString(), () -> load(today));
+        // Yesterday's window beats no window while TMDB is unavailable
+        return current == null ? load : load.onErrorReturn(current);
+    }
+
+    private Mono<Window> load(LocalDate startDate) {
+        LocalDate endDate = TMDBService.upcomingWindowEnd(startDate);
+        return tmdbService.getUpcomingWindowPage(startDate, endDate, 1)
+                .map(payload -> TMDBResultPage.parse(payload.getBody()))
+                .flatMap(first -> {
+                    int pages = Math.min(first.getTotalPages(), maxPages);
+                    return Flux.range(2, Math.max(0, pages - 1))
+                            .flatMapSequential(page -> tmdbService.getUpcomingWindowPage(startDate, endDate, page)
+                                    .map(payload -> TMDBResultPage.parse(payload.getBody())), concurrency)
+                            .collectList()
+                            .map(rest -> {
+                                List<TMDBResultPage> all = new ArrayList<>(rest.size() + 1);
+                                all.add(first);
+                                all.addAll(rest);
+                                return new Window(startDate, endDate, List.copyOf(TMDBResultPage.merge(all)), pages,
+                                        first.getTotalPages() > pages, first.getTotalResults());
+                            });
+                })
+                .doOnNext(loaded -> {
+                    window = loaded;
+                    loads.incrementAndGet();
+                })
+                .doOnError(error -> loadFailures.incrementAndGet());
+    }
+
+    // Rendered views are cached until the window moves, so they get an ETag and a gzip copy
+    private TMDBPayload render(Window current, Integer genreId, int page) {
+        String key = "upcoming-window/" + current.startDate
+                + "?genre=" + (genreId != null ? genreId : "") + "&page=" + page;
+        TMDBResponseCache.Entry cached = cache.get(key);
+        if (cached != null) {
+            return new TMDBPayload(cached, TMDBPayload.HIT);
+        }
+
+        List<TMDBResultPage.Result> matching = genreId == null ? current.movies : current.movies.stream()
+                .filter(movie -> movie.hasGenre(genreId))
+                .toList();
+        int from = Math.min((page - 1) * pageSize, matching.size());
+        int to = Math.min(from + pageSize, matching.size());
+        int totalResults = matching.size();
+        if (current.truncated) {
+            totalResults = Math.max(totalResults, current.tmdbTotalResults);
+        }
+        int totalPages = (totalResults + pageSize - 1) / pageSize;
+
+        List<byte[]> results = matching.subList(from, to).stream().map(TMDBResultPage.Result::getJson).toList();
+        byte[] body = TMDBResultPage.render(page, results, totalPages, totalResults);
+        return new TMDBPayload(cache.put(key, body, untilNextWindow()), TMDBPayload.LOCAL);
+    }
+
+    private static Duration untilNextWindow() {
+        ZonedDateTime now = ZonedDateTime.now(TMDBService.UPCOMING_ZONE);
+        ZonedDateTime midnight = now.toLocalDate().plusDays(1).atStartOfDay(TMDBService.UPCOMING_ZONE);
+        return Duration.between(now, midnight);
+    }
+
+    private static final class Window {
+
+        final LocalDate startDate;
+        final LocalDate endDate;
+        final List<TMDBResultPage.Result> movies;
+        final int pagesLoaded;
+        final boolean truncated;
+        final int tmdbTotalResults;
+
+        Window(LocalDate startDate, LocalDate endDate, List<TMDBResultPage.Result> movies, int pagesLoaded,
+                boolean truncated, int tmdbTotalResults) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.movies = movies;
+            this.pagesLoaded = pagesLoaded;
+            this.truncated = truncated;
+            this.tmdbTotalResults = tmdbTotalResults;
+        }
+    }
+}
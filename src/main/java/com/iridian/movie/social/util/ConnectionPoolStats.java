@@ -0,0 +1,107 @@
+package com.iridian.movie.social.util;
+
+import java.net.SocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.context.ContextView;
+
+/**
+ * Collects gauges from a Reactor Netty connection pool (one pool per remote
+ * address) and the time requests spend waiting for a pooled connection, without
+ * needing a Micrometer registry.
+ */
+public class ConnectionPoolStats implements ConnectionProvider.MeterRegistrar {
+
+    private static final String ACQUIRE_STARTED = ConnectionPoolStats.class.getName() + ".acquireStarted";
+
+    private final String name;
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong totalAcquireNanos = new AtomicLong();
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+    private final AtomicLong slowAcquires = new AtomicLong();
+    private final long slowAcquireNanos;
+
+    public ConnectionPoolStats(String name, long slowAcquireNanos) {
+        this.name = name;
+        this.slowAcquireNanos = slowAcquireNanos;
+    }
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        pools.put(String.valueOf(remoteAddress), metrics);
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        pools.remove(String.valueOf(remoteAddress));
+    }
+
+    // Stamps each exchange so recordAcquire can tell how long it waited for a connection
+    public ExchangeFilterFunction acquireTimer() {
+        return (request, next) -> next.exchange(request)
+                .contextWrite(context -> context.put(ACQUIRE_STARTED, System.nanoTime()));
+    }
+
+    // Called once the request has a connection and is about to be written; covers
+    // waiting in the pending-acquire queue and, for new connections, the connect itself
+    public void recordAcquire(ContextView context) {
+        Long started = context.getOrDefault(ACQUIRE_STARTED, null);
+        if (started == null) {
+            return;
+        }
+        long nanos = System.nanoTime() - started;
+        acquired.incrementAndGet();
+        totalAcquireNanos.addAndGet(nanos);
+        maxAcquireNanos.accumulateAndGet(nanos, Math::max);
+        if (nanos >= slowAcquireNanos) {
+            slowAcquires.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        int active = 0;
+        int idle = 0;
+        int pending = 0;
+        int max = 0;
+        Map<String, Object> perRemote = new HashMap<>();
+        for (Map.Entry<String, ConnectionPoolMetrics> pool : pools.entrySet()) {
+            ConnectionPoolMetrics metrics = pool.getValue();
+            active += metrics.acquiredSize();
+            idle += metrics.idleSize();
+            pending += metrics.pendingAcquireSize();
+            max += metrics.maxAllocatedSize();
+
+            Map<String, Object> remote = new HashMap<>();
+            remote.put("active", metrics.acquiredSize());
+            remote.put("idle", metrics.idleSize());
+            remote.put("allocated", metrics.allocatedSize());
+            remote.put("pending", metrics.pendingAcquireSize());
+            remote.put("maxConnections", metrics.maxAllocatedSize());
+            remote.put("maxPending", metrics.maxPendingAcquireSize());
+            perRemote.put(pool.getKey(), remote);
+        }
+
+        long acquiredCount = acquired.get();
+        stats.put("name", name);
+        stats.put("active", active);
+        stats.put("idle", idle);
+        stats.put("pending", pending);
+        stats.put("utilization", max == 0 ? 0.0 : (double) active / max);
+        stats.put("pools", perRemote);
+        stats.put("acquired", acquiredCount);
+        stats.put("slowAcquires", slowAcquires.get());
+        stats.put("avgAcquireMillis", acquiredCount == 0 ? 0.0 : totalAcquireNanos.get() / 1_000_000.0 / acquiredCount);
+        stats.put("maxAcquireMillis", maxAcquireNanos.get() / 1_000_000.0);
+        return stats;
+    }
+}
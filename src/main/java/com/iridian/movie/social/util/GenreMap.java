@@ -19,6 +19,10 @@ public final class GenreMap {
             Map.entry(53, "Thriller"), Map.entry(10752, "War"), Map.entry(37, "Western")
     );
 
+    public static List<Integer> ids() {
+        return MAP.keySet().stream().sorted().toList();
+    }
+
     public static List<String> toNames(List<Integer> ids) {
         if (ids == null) {
             return List.of();
@@ -0,0 +1,190 @@
+package com.iridian.movie.social.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.iridian.movie.social.model.EntryType;
+
+/**
+ * Which users like which entries, held both ways as SortedIntSets over dense
+ * indexes: the entries each user likes, and the users who like each entry.
+ *
+ * Finding users similar to u walks the likers of each entry u likes and counts,
+ * per other user, how many of u's entries they share. That touches only users with
+ * at least one like in common, at a cost of one int increment per shared like, and
+ * gives both the overlap and the Jaccard index |A ∩ B| / |A ∪ B|.
+ *
+ * Reads share a read lock; changes take the write lock.
+ */
+public class LikeSimilarityIndex {
+
+    public record Match(String userId, int commonLikes, double jaccard) {
+    }
+
+    private final Map<String, Integer> userIndex = new HashMap<>();
+    private final List<String> userIds = new ArrayList<>();
+    private final List<SortedIntSet> likesByUser = new ArrayList<>();
+    private final Map<Long, Integer> entryIndex = new HashMap<>();
+    private final List<SortedIntSet> likersByEntry = new ArrayList<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<int[]> overlapScratch = ThreadLocal.withInitial(() -> new int[0]);
+    private long likes;
+
+    // Records or clears one like; liking twice or unliking something not liked is a no-op
+    public void set(String userId, EntryType entryType, long entryId, boolean liked) {
+        lock.writeLock().lock();
+        try {
+            if (!liked && (!userIndex.containsKey(userId) || !entryIndex.containsKey(key(entryType, entryId)))) {
+                return;
+            }
+            int user = user(userId);
+            int entry = entry(entryType, entryId);
+            boolean changed = liked
+                    ? likesByUser.get(user).add(entry) && likersByEntry.get(entry).add(user)
+                    : likesByUser.get(user).remove(entry) && likersByEntry.get(entry).remove(user);
+            if (changed) {
+                likes += liked ? 1 : -1;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Bulk load without ordering; call compact() once every like has been appended
+    public void append(String userId, EntryType entryType, long entryId) {
+        int user = user(userId);
+        int entry = entry(entryType, entryId);
+        likesByUser.get(user).append(entry);
+        likersByEntry.get(entry).append(user);
+    }
+
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            likes = 0;
+            for (SortedIntSet entries : likesByUser) {
+                entries.compact();
+                likes += entries.size();
+            }
+            likersByEntry.forEach(SortedIntSet::compact);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Forgets every like on a deleted entry
+    public void removeEntry(EntryType entryType, long entryId) {
+        lock.writeLock().lock();
+        try {
+            Integer entry = entryIndex.get(key(entryType, entryId));
+            if (entry == null) {
+                return;
+            }
+            SortedIntSet likers = likersByEntry.get(entry);
+            for (int i = 0; i < likers.size(); i++) {
+                likesByUser.get(likers.get(i)).remove(entry);
+            }
+            likes -= likers.size();
+            likers.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Up to limit users sharing at least one like with userId, best first
+    public List<Match> similarTo(String userId, int limit, boolean byJaccard) {
+        lock.readLock().lock();
+        try {
+            Integer user = userIndex.get(userId);
+            if (user == null || limit <= 0) {
+                return List.of();
+            }
+            SortedIntSet mine = likesByUser.get(user);
+            int[] overlap = overlapScratch.get();
+            if (overlap.length < userIds.size()) {
+                overlap = new int[userIds.size()];
+                overlapScratch.set(overlap);
+            }
+
+            SortedIntSet candidates = new SortedIntSet();
+            for (int i = 0; i < mine.size(); i++) {
+                SortedIntSet likers = likersByEntry.get(mine.get(i));
+                for (int j = 0; j < likers.size(); j++) {
+                    int other = likers.get(j);
+                    if (other != user && overlap[other]++ == 0) {
+                        candidates.append(other);
+                    }
+                }
+            }
+
+            Comparator<Match> order = byJaccard
+                    ? Comparator.comparingDouble(Match::jaccard).thenComparingInt(Match::commonLikes)
+                    : Comparator.comparingInt(Match::commonLikes).thenComparingDouble(Match::jaccard);
+            PriorityQueue<Match> best = new PriorityQueue<>(order);
+            for (int i = 0; i < candidates.size(); i++) {
+                int other = candidates.get(i);
+                int common = overlap[other];
+                overlap[other] = 0;
+                int union = mine.size() + likesByUser.get(other).size() - common;
+                Match match = new Match(userIds.get(other), common, (double) common / union);
+                if (best.size() < limit) {
+                    best.add(match);
+                } else if (order.compare(match, best.peek()) > 0) {
+                    best.poll();
+                    best.add(match);
+                }
+            }
+
+            List<Match> result = new ArrayList<>(best);
+            result.sort(order.reversed());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("users", userIds.size());
+            stats.put("entries", likersByEntry.size());
+            stats.put("likes", likes);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int user(String userId) {
+        Integer user = userIndex.get(userId);
+        if (user == null) {
+            user = userIds.size();
+            userIndex.put(userId, user);
+            userIds.add(userId);
+            likesByUser.add(new SortedIntSet());
+        }
+        return user;
+    }
+
+    private int entry(EntryType entryType, long entryId) {
+        long key = key(entryType, entryId);
+        Integer entry = entryIndex.get(key);
+        if (entry == null) {
+            entry = likersByEntry.size();
+            entryIndex.put(key, entry);
+            likersByEntry.add(new SortedIntSet());
+        }
+        return entry;
+    }
+
+    // Entry ids come from per-table sequences; the type goes in the top bits
+    private static long key(EntryType entryType, long entryId) {
+        return ((long) entryType.ordinal() << 56) | entryId;
+    }
+}
@@ -0,0 +1,245 @@
+package com.iridian.movie.social.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.iridian.movie.social.model.EntryType;
+
+/**
+ * Like/dislike totals per (entryId, EntryType), held in striped LongAdder counters
+ * so concurrent reactions on one hot entry do not contend on a single value.
+ *
+ * Reads and increments are lock-free. Size is bounded by an approximate LRU: each
+ * entry carries a coarse last-access time, and when the cache grows past its limit
+ * one thread evicts the least recently read tenth. Entries are reloaded after the
+ * TTL, which also bounds drift from other instances.
+ *
+ * A change committed while an entry is being cold-loaded may or may not be in what
+ * the load read, and cannot be added to an entry that is not cached yet. Writers
+ * therefore mark the key's stripe as changing before they commit, and every add and
+ * invalidate bumps the stripe's generation. A load is only cached if the generation
+ * did not move while it ran and nothing in the stripe is still about to commit.
+ */
+@Component
+public class ReactionCountCache {
+
+    private record Key(long entryId, EntryType entryType) {
+    }
+
+    private static final class Counts {
+
+        final LongAdder likes = new LongAdder();
+        final LongAdder dislikes = new LongAdder();
+        final long loadedAt;
+        volatile long lastAccess;
+
+        Counts(long likes, long dislikes, long now) {
+            this.likes.add(likes);
+            this.dislikes.add(dislikes);
+            this.loadedAt = now;
+            this.lastAccess = now;
+        }
+
+        long[] snapshot() {
+            return new long[]{likes.sum(), dislikes.sum()};
+        }
+    }
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final ConcurrentHashMap<Key, Counts> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLongArray changing = new AtomicLongArray(GENERATION_STRIPES);
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder increments = new LongAdder();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong discardedLoads = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ReactionCountCache(@Value("${reactions.cache.max-entries:100000}") int maxEntries,
+            @Value("${reactions.cache.ttl:1m}") Duration ttl) {
+        this.maxEntries = Math.max(16, maxEntries);
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    // Returns {likes, dislikes}, or null on a miss or an expired entry
+    public long[] get(long entryId, EntryType entryType) {
+        Counts counts = entries.get(new Key(entryId, entryType));
+        long now = System.currentTimeMillis();
+        if (counts == null || now - counts.loadedAt >= ttlMillis) {
+            misses.increment();
+            return null;
+        }
+        touch(counts, now);
+        hits.increment();
+        return counts.snapshot();
+    }
+
+    // Answers what it can from memory and cold-loads every miss with one call to the loader
+    public Map<Long, long[]> getAll(Collection<Long> entryIds, EntryType entryType,
+            Function<List<Long>, Map<Long, long[]>> loader) {
+        Map<Long, long[]> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long entryId : new LinkedHashSet<>(entryIds)) {
+            long[] counts = get(entryId, entryType);
+            if (counts != null) {
+                result.put(entryId, counts);
+            } else {
+                missing.add(entryId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long[] stamps = new long[missing.size()];
+            for (int i = 0; i < stamps.length; i++) {
+                stamps[i] = stamp(missing.get(i), entryType);
+            }
+            Map<Long, long[]> loaded = loader.apply(missing);
+            for (int i = 0; i < stamps.length; i++) {
+                Long entryId = missing.get(i);
+                long[] counts = loaded.getOrDefault(entryId, new long[]{0, 0});
+                putIfUnchanged(entryId, entryType, counts[0], counts[1], stamps[i]);
+                result.put(entryId, counts);
+            }
+        }
+        return result;
+    }
+
+    // Take before reading the counts to cache, and hand to putIfUnchanged afterwards
+    public long stamp(long entryId, EntryType entryType) {
+        return generations.get(stripe(new Key(entryId, entryType)));
+    }
+
+    // Caches a cold load unless a change to the entry committed since stamp was taken or
+    // is about to; returns false when the load was dropped and the caller may load again
+    public boolean putIfUnchanged(long entryId, EntryType entryType, long likes, long dislikes, long stamp) {
+        Key key = new Key(entryId, entryType);
+        int stripe = stripe(key);
+        Counts loaded = new Counts(likes, dislikes, System.currentTimeMillis());
+        entries.put(key, loaded);
+        // Checked after publishing: an add that ran before the put bumped the generation,
+        // and one that runs after it was still changing here, so it cannot double count
+        if (generations.get(stripe) != stamp || changing.get(stripe) != 0) {
+            entries.remove(key, loaded);
+            discardedLoads.incrementAndGet();
+            return false;
+        }
+        loads.incrementAndGet();
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+        return true;
+    }
+
+    public void put(long entryId, EntryType entryType, long likes, long dislikes) {
+        long now = System.currentTimeMillis();
+        entries.put(new Key(entryId, entryType), new Counts(likes, dislikes, now));
+        loads.incrementAndGet();
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+    }
+
+    // Call before committing a change to the entry, and changeDone once it committed
+    // (after add) or rolled back
+    public void changing(long entryId, EntryType entryType) {
+        changing.incrementAndGet(stripe(new Key(entryId, entryType)));
+    }
+
+    public void changeDone(long entryId, EntryType entryType) {
+        changing.decrementAndGet(stripe(new Key(entryId, entryType)));
+    }
+
+    // Applies a committed change; entries that are not cached are left to the next cold load
+    public void add(long entryId, EntryType entryType, long likeDelta, long dislikeDelta) {
+        Key key = new Key(entryId, entryType);
+        generations.incrementAndGet(stripe(key));
+        Counts counts = entries.get(key);
+        if (counts == null) {
+            return;
+        }
+        if (likeDelta != 0) {
+            counts.likes.add(likeDelta);
+        }
+        if (dislikeDelta != 0) {
+            counts.dislikes.add(dislikeDelta);
+        }
+        increments.increment();
+    }
+
+    public void invalidate(long entryId, EntryType entryType) {
+        Key key = new Key(entryId, entryType);
+        generations.incrementAndGet(stripe(key));
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        stats.put("entries", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("increments", increments.sum());
+        stats.put("loads", loads.get());
+        stats.put("discardedLoads", discardedLoads.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private static int stripe(Key key) {
+        return (key.hashCode() & 0x7fffffff) % GENERATION_STRIPES;
+    }
+
+    // Writing the access time only when it moved keeps readers of a hot entry
+    // from bouncing its cache line between cores on every hit
+    private static void touch(Counts counts, long now) {
+        if (now - counts.lastAccess > 1000) {
+            counts.lastAccess = now;
+        }
+    }
+
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Access times are copied first; readers keep updating them during the sort
+            List<Object[]> byAge = new ArrayList<>(entries.size());
+            entries.forEach((key, counts) -> byAge.add(new Object[]{key, counts, counts.lastAccess}));
+            byAge.sort((a, b) -> Long.compare((Long) a[2], (Long) b[2]));
+            int target = maxEntries - maxEntries / 10;
+            for (int i = 0; i < byAge.size() && entries.size() > target; i++) {
+                if (entries.remove((Key) byAge.get(i)[0], (Counts) byAge.get(i)[1])) {
+                    evictions.incrementAndGet();
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.iridian.movie.social.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Collapses concurrent calls for the same key into one outstanding Mono.
+ * Every caller that arrives while the call is running gets the same result.
+ */
+public class SingleFlight<T> {
+
+    private final ConcurrentHashMap<String, Mono<T>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public Mono<T> execute(String key, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            boolean[] leader = new boolean[1];
+            Mono<T> shared = inFlight.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                return start(k, call);
+            });
+
+            if (leader[0]) {
+                calls.incrementAndGet();
+            } else {
+                coalesced.incrementAndGet();
+            }
+            return shared;
+        });
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("upstreamCalls", calls.get());
+        stats.put("coalescedWaiters", coalesced.get());
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
+    private Mono<T> start(String key, Supplier<Mono<T>> call) {
+        AtomicReference<Mono<T>> self = new AtomicReference<>();
+        self.set(Mono.defer(call)
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .cache());
+        return self.get();
+    }
+}
@@ -0,0 +1,83 @@
+package com.iridian.movie.social.util;
+
+import java.util.Arrays;
+
+/**
+ * A set of ints kept as one sorted, growable int[]: four bytes per member, no
+ * boxing, and membership by binary search. Suited to the small-to-medium sets
+ * of the similarity index, where members are dense indexes rather than ids.
+ *
+ * Bulk loads can append() in any order and call compact() once at the end.
+ */
+public class SortedIntSet {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] values = EMPTY;
+    private int size;
+
+    public boolean add(int value) {
+        int at = Arrays.binarySearch(values, 0, size, value);
+        if (at >= 0) {
+            return false;
+        }
+        at = -at - 1;
+        grow();
+        System.arraycopy(values, at, values, at + 1, size - at);
+        values[at] = value;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int at = Arrays.binarySearch(values, 0, size, value);
+        if (at < 0) {
+            return false;
+        }
+        System.arraycopy(values, at + 1, values, at, size - at - 1);
+        size--;
+        return true;
+    }
+
+    public boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    // Unordered add for bulk loads; the set is only valid again after compact()
+    public void append(int value) {
+        grow();
+        values[size++] = value;
+    }
+
+    // Sorts, drops duplicates and trims the spare capacity left by appends
+    public void compact() {
+        Arrays.sort(values, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || values[i] != values[distinct - 1]) {
+                values[distinct++] = values[i];
+            }
+        }
+        size = distinct;
+        values = size == 0 ? EMPTY : Arrays.copyOf(values, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int index) {
+        return values[index];
+    }
+
+    public void clear() {
+        values = EMPTY;
+        size = 0;
+    }
+
+    private void grow() {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(4, size + (size >> 1)));
+        }
+    }
+}
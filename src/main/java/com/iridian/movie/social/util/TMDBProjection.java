@@ -0,0 +1,93 @@
+package com.iridian.movie.social.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+// Slims TMDB list payloads ({page, results[], total_pages, total_results}) down to the
+// requested movie fields in a single streaming pass, without building a tree
+public final class TMDBProjection {
+
+    public static final Set<String> ALLOWED_FIELDS = Set.of(
+            "id", "title", "poster_path", "vote_average", "genre_ids", "release_date");
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private TMDBProjection() {
+    }
+
+    public static Set<String> parseFields(String fields) {
+        Set<String> parsed = new TreeSet<>();
+        if (fields == null || fields.isBlank()) {
+            return parsed;
+        }
+        Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .forEach(field -> {
+                    if (!ALLOWED_FIELDS.contains(field)) {
+                        throw new IllegalArgumentException("Unsupported field: " + field);
+                    }
+                    parsed.add(field);
+                });
+        return parsed;
+    }
+
+    public static byte[] project(byte[] payload, Set<String> fields) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 4);
+        try (JsonParser parser = JSON.createParser(payload);
+                JsonGenerator generator = JSON.createGenerator(out)) {
+
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return payload;
+            }
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                generator.writeFieldName(name);
+                if ("results".equals(name) && value == JsonToken.START_ARRAY) {
+                    projectResults(parser, generator, fields);
+                } else {
+                    generator.copyCurrentStructure(parser);
+                }
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not project TMDB payload", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void projectResults(JsonParser parser, JsonGenerator generator, Set<String> fields)
+            throws IOException {
+        generator.writeStartArray();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                generator.copyCurrentStructure(parser);
+                continue;
+            }
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                if (fields.contains(name)) {
+                    generator.writeFieldName(name);
+                    generator.copyCurrentStructure(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+}
@@ -0,0 +1,303 @@
+package com.iridian.movie.social.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+public class TMDBResponseCache {
+
+    // Rough per-entry bookkeeping cost (map node, entry object, array headers, ETag)
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    public static final class Entry {
+
+        private final String key;
+        // Large bodies are kept only in gzip form; body is null for those
+        private final byte[] body;
+        private final byte[] gzipBody;
+        private final int length;
+        private final long storedAt;
+        private final long expiresAt;
+        private final String etag;
+        // Guarded by the cache, so a retained stale entry counts as one expiration
+        private boolean expiryCounted;
+
+        Entry(String key, byte[] body, byte[] gzipBody, int length, long storedAt, long expiresAt, String etag) {
+            this.key = key;
+            this.body = body;
+            this.gzipBody = gzipBody;
+            this.length = length;
+            this.storedAt = storedAt;
+            this.expiresAt = expiresAt;
+            this.etag = etag;
+        }
+
+        public static Entry uncached(byte[] body) {
+            long now = System.currentTimeMillis();
+            return new Entry(null, body, null, body.length, now, now, null);
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public byte[] getBody() {
+            return body != null ? body : gunzip(gzipBody, length);
+        }
+
+        public byte[] getGzipBody() {
+            return gzipBody;
+        }
+
+        public boolean isCompressed() {
+            return gzipBody != null;
+        }
+
+        public long getStoredAt() {
+            return storedAt;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        public String getETag() {
+            return etag;
+        }
+
+        // Strong validators must differ between encodings of the same content
+        public String getGzipETag() {
+            return etag == null ? null : etag.substring(0, etag.length() - 1) + "-gzip\"";
+        }
+
+        public boolean isFresh(long now) {
+            return now < expiresAt;
+        }
+
+        public long getRemainingMillis(long now) {
+            return Math.max(0, expiresAt - now);
+        }
+
+        private int storedBytes() {
+            return gzipBody != null ? gzipBody.length : body.length;
+        }
+    }
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final long maxBytes;
+    private final long staleRetentionMillis;
+    private final long compressMinBytes;
+    private final boolean enabled;
+    private long currentBytes;
+    private long uncompressedBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public TMDBResponseCache(@Value("${tmdb.cache.max-size:32MB}") DataSize maxSize,
+            @Value("${tmdb.cache.stale-retention:24h}") Duration staleRetention,
+            @Value("${tmdb.cache.compress-min-size:1KB}") DataSize compressMinSize,
+            @Value("${tmdb.cache.enabled:true}") boolean enabled) {
+        this.maxBytes = maxSize.toBytes();
+        this.staleRetentionMillis = staleRetention.toMillis();
+        this.compressMinBytes = compressMinSize.toBytes();
+        this.enabled = enabled;
+    }
+
+    public static String key(String path, Map<String, ?> params) {
+        if (params == null || params.isEmpty()) {
+            return path;
+        }
+        StringBuilder key = new StringBuilder(path).append('?');
+        new TreeMap<>(params).forEach((name, value) -> {
+            if (key.charAt(key.length() - 1) != '?') {
+                key.append('&');
+            }
+            key.append(name).append('=').append(value);
+        });
+        return key.toString();
+    }
+
+    public synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (!entry.isFresh(now)) {
+            // Expired entries stay around as last-known-good copies until retention runs out
+            if (now - entry.expiresAt > staleRetentionMillis) {
+                remove(key);
+            }
+            if (!entry.expiryCounted) {
+                entry.expiryCounted = true;
+                expirations.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry;
+    }
+
+    public synchronized Entry getStale(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.expiresAt > staleRetentionMillis) {
+            remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    public synchronized Entry peek(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.isFresh(System.currentTimeMillis()) ? entry : null;
+    }
+
+    public Entry put(String key, byte[] body, Duration ttl) {
+        long now = System.currentTimeMillis();
+        return store(newEntry(key, body, now, now + ttl.toMillis()));
+    }
+
+    // Stores a value computed from another entry (e.g. a projection) with the same lifetime
+    public Entry putDerived(String key, byte[] body, Entry source) {
+        return store(newEntry(key, body, source.storedAt, source.expiresAt));
+    }
+
+    // Validator and gzip form are produced once here, on the way into the cache,
+    // rather than on every response
+    private Entry newEntry(String key, byte[] body, long storedAt, long expiresAt) {
+        String etag = etagOf(body);
+        if (body.length >= compressMinBytes) {
+            byte[] compressed = gzip(body);
+            if (compressed.length < body.length) {
+                return new Entry(key, null, compressed, body.length, storedAt, expiresAt, etag);
+            }
+        }
+        return new Entry(key, body, null, body.length, storedAt, expiresAt, etag);
+    }
+
+    private Entry store(Entry entry) {
+        String key = entry.key;
+        long size = sizeOf(key, entry);
+        // With the cache switched off entries are still built, just never kept
+        if (!enabled || size > maxBytes) {
+            return entry;
+        }
+
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                currentBytes -= sizeOf(key, previous);
+                uncompressedBytes -= previous.length;
+            }
+            currentBytes += size;
+            uncompressedBytes += entry.length;
+            evictUntilWithinBudget();
+        }
+        return entry;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+        uncompressedBytes = 0;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        stats.put("enabled", enabled);
+        stats.put("entries", entries.size());
+        stats.put("bytes", currentBytes);
+        stats.put("uncompressedBytes", uncompressedBytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        return stats;
+    }
+
+    private void evictUntilWithinBudget() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Entry> victim = eldest.next();
+            currentBytes -= sizeOf(victim.getKey(), victim.getValue());
+            uncompressedBytes -= victim.getValue().length;
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            currentBytes -= sizeOf(key, removed);
+            uncompressedBytes -= removed.length;
+        }
+    }
+
+    private static String etagOf(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compress cache entry", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] compressed, int length) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return gzip.readNBytes(length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not decompress cache entry", e);
+        }
+    }
+
+    private static long sizeOf(String key, Entry entry) {
+        return entry.storedBytes() + 2L * key.length() + ENTRY_OVERHEAD_BYTES;
+    }
+}
@@ -0,0 +1,145 @@
+package com.iridian.movie.social.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// One page of a TMDB list response, split into result objects that can be
+// re-assembled into pages of our own
+public final class TMDBResultPage {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static final class Result {
+
+        private final long id;
+        private final int[] genreIds;
+        private final double popularity;
+        private final byte[] json;
+
+        Result(long id, int[] genreIds, double popularity, byte[] json) {
+            this.id = id;
+            this.genreIds = genreIds;
+            this.popularity = popularity;
+            this.json = json;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public int[] getGenreIds() {
+            return genreIds;
+        }
+
+        public boolean hasGenre(int genreId) {
+            for (int id : genreIds) {
+                if (id == genreId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public double getPopularity() {
+            return popularity;
+        }
+
+        // The result object, serialized once and spliced into every page it appears on
+        public byte[] getJson() {
+            return json;
+        }
+    }
+
+    private final List<Result> results;
+    private final int totalPages;
+    private final int totalResults;
+
+    private TMDBResultPage(List<Result> results, int totalPages, int totalResults) {
+        this.results = results;
+        this.totalPages = totalPages;
+        this.totalResults = totalResults;
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    public int getTotalResults() {
+        return totalResults;
+    }
+
+    public static TMDBResultPage parse(byte[] payload) {
+        try {
+            JsonNode root = MAPPER.readTree(payload);
+            List<Result> results = new ArrayList<>();
+            for (JsonNode result : root.path("results")) {
+                if (!result.hasNonNull("id")) {
+                    continue;
+                }
+                JsonNode genres = result.path("genre_ids");
+                int[] genreIds = new int[genres.size()];
+                for (int i = 0; i < genreIds.length; i++) {
+                    genreIds[i] = genres.get(i).asInt();
+                }
+                results.add(new Result(result.get("id").asLong(), genreIds,
+                        result.path("popularity").asDouble(), MAPPER.writeValueAsBytes(result)));
+            }
+            return new TMDBResultPage(results, Math.max(1, root.path("total_pages").asInt(1)),
+                    root.path("total_results").asInt(results.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read TMDB result page", e);
+        }
+    }
+
+    // Just total_pages and total_results, without splitting out the results
+    public static TMDBResultPage readTotals(byte[] payload) {
+        try {
+            JsonNode root = MAPPER.readTree(payload);
+            return new TMDBResultPage(List.of(), Math.max(1, root.path("total_pages").asInt(1)),
+                    root.path("total_results").asInt(root.path("results").size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read TMDB result page", e);
+        }
+    }
+
+    // TMDB pages can shift while we walk them, so the same movie may show up twice
+    public static List<Result> merge(List<TMDBResultPage> pages) {
+        Set<Long> seen = new HashSet<>();
+        List<Result> merged = new ArrayList<>();
+        for (TMDBResultPage page : pages) {
+            for (Result result : page.results) {
+                if (seen.add(result.id)) {
+                    merged.add(result);
+                }
+            }
+        }
+        return merged;
+    }
+
+    public static byte[] render(int page, List<byte[]> results, int totalPages, int totalResults) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 + results.size() * 512);
+        out.writeBytes(("{\"page\":" + page + ",\"results\":[").getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < results.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.writeBytes(results.get(i));
+        }
+        out.writeBytes(("],\"total_pages\":" + totalPages + ",\"total_results\":" + totalResults + "}")
+                .getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,127 @@
+package com.iridian.movie.social.util;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking token bucket. Callers reserve a permit and wait for it on a timer
+ * instead of a thread; reservations that would queue longer than the wait budget,
+ * or beyond the queue bound, are rejected straight away.
+ */
+public class TokenBucket {
+
+    public static class RejectedException extends RuntimeException {
+
+        private final Duration retryAfter;
+
+        public RejectedException(String name, Duration retryAfter) {
+            super("Rate limit '" + name + "' exceeded");
+            this.retryAfter = retryAfter;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+    }
+
+    private final String name;
+    private final long intervalNanos;
+    private final int burst;
+    private final long maxWaitNanos;
+    private final int maxQueue;
+
+    private double storedPermits;
+    private long nextFreeNanos;
+    private long pausedUntilNanos;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong granted = new AtomicLong();
+    private final AtomicLong delayed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong pauses = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitObservedNanos = new AtomicLong();
+
+    public TokenBucket(String name, double permitsPerSecond, int burst, Duration maxWait, int maxQueue) {
+        this.name = name;
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burst = Math.max(1, burst);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.maxQueue = maxQueue;
+        this.storedPermits = this.burst;
+        this.nextFreeNanos = System.nanoTime();
+    }
+
+    public <T> Mono<T> acquire(Mono<T> call) {
+        return Mono.defer(() -> {
+            long waitNanos = reserve();
+            if (waitNanos < 0) {
+                rejected.incrementAndGet();
+                return Mono.error(new RejectedException(name, Duration.ofNanos(Math.max(-waitNanos, 1))));
+            }
+
+            granted.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            maxWaitObservedNanos.accumulateAndGet(waitNanos, Math::max);
+            if (waitNanos == 0) {
+                return call;
+            }
+
+            delayed.incrementAndGet();
+            waiting.incrementAndGet();
+            return Mono.delay(Duration.ofNanos(waitNanos))
+                    .doFinally(signal -> waiting.decrementAndGet())
+                    .then(call);
+        });
+    }
+
+    // Upstream told us to back off (e.g. a Retry-After header), so hold all permits until then
+    public synchronized void pauseFor(Duration duration) {
+        pauses.incrementAndGet();
+        pausedUntilNanos = Math.max(pausedUntilNanos, System.nanoTime() + duration.toNanos());
+        storedPermits = 0;
+        // Refill from the end of the pause, not from before it
+        nextFreeNanos = Math.max(nextFreeNanos, pausedUntilNanos);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long grantedCount = granted.get();
+        stats.put("name", name);
+        stats.put("queueDepth", waiting.get());
+        stats.put("granted", grantedCount);
+        stats.put("delayed", delayed.get());
+        stats.put("rejected", rejected.get());
+        stats.put("retryAfterPauses", pauses.get());
+        stats.put("avgWaitMillis", grantedCount == 0 ? 0.0 : totalWaitNanos.get() / 1_000_000.0 / grantedCount);
+        stats.put("maxWaitMillis", maxWaitObservedNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    // Returns how long the caller has to wait for its permit, or a negative
+    // "retry after" hint in nanoseconds when the request is rejected
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        if (now > nextFreeNanos) {
+            storedPermits = Math.min(burst, storedPermits + (double) (now - nextFreeNanos) / intervalNanos);
+            nextFreeNanos = now;
+        }
+
+        long earliest = Math.max(nextFreeNanos, pausedUntilNanos);
+        long waitNanos = Math.max(0, earliest - now);
+        if (waitNanos > maxWaitNanos || (waitNanos > 0 && waiting.get() >= maxQueue)) {
+            return -waitNanos;
+        }
+
+        double fromStored = earliest > now ? 0 : Math.min(1.0, storedPermits);
+        storedPermits -= fromStored;
+        nextFreeNanos = earliest + (long) ((1.0 - fromStored) * intervalNanos);
+        return waitNanos;
+    }
+}
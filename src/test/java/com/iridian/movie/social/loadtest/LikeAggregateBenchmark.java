@@ -0,0 +1,160 @@
+package com.iridian.movie.social.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.iridian.movie.social.MovieSocialAppApplication;
+import com.iridian.movie.social.model.EntryType;
+import com.iridian.movie.social.model.MovieCommentLike;
+import com.iridian.movie.social.repository.MovieCommentLikeRepository;
+import com.iridian.movie.social.service.MovieCommentLikeService;
+
+/**
+ * Compares the old batch like lookup (load every reaction row, count in Java)
+ * with the GROUP BY aggregate behind MovieCommentLikeService.getBatchLikeData,
+ * at 10k, 100k and 1M reactions on a page of 20 entries where one entry holds
+ * most of the reactions. Runs on an in-memory H2 database in PostgreSQL mode.
+ *
+ * Not a unit test, so surefire never picks it up. Run it like MovieEndpointLoadScenario:
+ *   java -Xmx2g -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *       com.iridian.movie.social.loadtest.LikeAggregateBenchmark [sizes...]
+ */
+public class LikeAggregateBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int ROUNDS = 7;
+    private static final String VIEWER = "viewer";
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[]{10_000, 100_000, 1_000_000};
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        int port = freePort();
+        ConfigurableApplicationContext context = SpringApplication.run(MovieSocialAppApplication.class,
+                "--spring.profiles.active=tmdb-stub",
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:likes-" + port + ";MODE=PostgreSQL",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--jwt.secret=load-test-secret-load-test-secret-load-test-secret",
+                "--spring.mail.host=localhost",
+                "--spring.mail.port=25",
+                "--spring.mail.username=load",
+                "--spring.mail.password=load",
+                "--spring.mail.properties.mail.smtp.auth=false",
+                "--spring.mail.properties.mail.smtp.starttls.enable=false",
+                "--spring.mail.properties.mail.smtp.starttls.required=false",
+                "--spring.mail.properties.mail.smtp.ssl.trust=localhost",
+                "--tmdb.prewarm.enabled=false",
+                "--tmdb.discover.pool.enabled=false",
+                "--tmdb.upcoming.window.enabled=false",
+                "--tmdb.search.local.enabled=false");
+        try {
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            MovieCommentLikeRepository repository = context.getBean(MovieCommentLikeRepository.class);
+            MovieCommentLikeService service = context.getBean(MovieCommentLikeService.class);
+            List<Long> entryIds = new ArrayList<>();
+            for (long id = 1; id <= PAGE_SIZE; id++) {
+                entryIds.add(id);
+            }
+
+            System.out.println();
+            System.out.printf("%-10s %16s %16s %10s%n", "reactions", "row load ms", "aggregate ms", "speedup");
+            for (int size : sizes) {
+                seed(jdbc, size);
+                Map<Long, long[]> expected = loadRows(repository, entryIds, VIEWER);
+                checkSame(expected, service.getBatchLikeData(entryIds, EntryType.FAVORITE, VIEWER));
+
+                double rowLoad = medianMillis(viewer -> loadRows(repository, entryIds, viewer));
+                double aggregate = medianMillis(viewer -> service.getBatchLikeData(entryIds, EntryType.FAVORITE, viewer));
+                System.out.printf("%-10d %16.2f %16.2f %9.1fx%n", size, rowLoad, aggregate, rowLoad / aggregate);
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    // 90% of the reactions go to entry 1, the rest spread over the page
+    private static void seed(JdbcTemplate jdbc, int size) {
+        jdbc.update("DELETE FROM movie_comment_likes");
+        List<Object[]> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < size; i++) {
+            long entryId = i % 10 == 0 ? 2 + (i / 10) % (PAGE_SIZE - 1) : 1;
+            String userId = i == 0 ? VIEWER : "user-" + i;
+            batch.add(new Object[]{userId, entryId, EntryType.FAVORITE.name(), "owner", i % 4 != 0});
+            if (batch.size() == 10_000) {
+                insert(jdbc, batch);
+            }
+        }
+        insert(jdbc, batch);
+        jdbc.execute("ANALYZE");
+    }
+
+    private static void insert(JdbcTemplate jdbc, List<Object[]> batch) {
+        jdbc.batchUpdate("INSERT INTO movie_comment_likes (user_id, movie_entry_id, entry_type, movie_owner_id, is_like) "
+                + "VALUES (?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+
+    // The previous getBatchLikeData: every reaction row as an entity, counted in Java
+    private static Map<Long, long[]> loadRows(MovieCommentLikeRepository repository, List<Long> entryIds,
+            String viewer) {
+        Map<Long, long[]> counts = new HashMap<>();
+        for (MovieCommentLike like : repository.findByMovieEntryIdsAndType(entryIds, EntryType.FAVORITE)) {
+            long[] entry = counts.computeIfAbsent(like.getMovieEntryId(), id -> new long[3]);
+            entry[like.getIsLike() ? 0 : 1]++;
+        }
+        for (MovieCommentLike like : repository.findUserLikesForEntries(viewer, entryIds, EntryType.FAVORITE)) {
+            counts.get(like.getMovieEntryId())[2] = like.getIsLike() ? 1 : -1;
+        }
+        return counts;
+    }
+
+    private static void checkSame(Map<Long, long[]> expected, Map<Long, Map<String, Object>> actual) {
+        for (Map.Entry<Long, long[]> entry : expected.entrySet()) {
+            Map<String, Object> data = actual.get(entry.getKey());
+            long[] counts = entry.getValue();
+            String status = counts[2] == 0 ? null : counts[2] > 0 ? "liked" : "disliked";
+            if (!data.get("likes").equals(counts[0]) || !data.get("dislikes").equals(counts[1])
+                    || (status == null ? data.get("userStatus") != null : !status.equals(data.get("userStatus")))) {
+                throw new IllegalStateException("Aggregate disagrees with row count for entry " + entry.getKey()
+                        + ": " + data + " vs " + Arrays.toString(counts));
+            }
+        }
+    }
+
+    // Each round asks as a different viewer so H2 cannot hand back the previous result
+    private static double medianMillis(Consumer<String> task) {
+        // First round warms the query plan cache and the JIT
+        task.accept(VIEWER + "-warmup");
+        long[] samples = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            task.accept(VIEWER + "-" + i);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[ROUNDS / 2] / 1e6;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.iridian.movie.social.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.iridian.movie.social.MovieSocialAppApplication;
+import com.iridian.movie.social.util.JwtUtil;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Repeatable load scenario for the /api/movies endpoints, run against the app
+ * with an in-memory H2 database, printing throughput plus p50/p99 latency per run.
+ *
+ * "cache" starts the app twice against the in-process TMDB stub (profile
+ * "tmdb-stub"), once with caching on and once with every cache layer off.
+ *
+ * "servlet" compares the synchronous handlers (tmdb.response.blocking=true, a
+ * servlet thread per TMDB round trip) with the async ones, caches off and Tomcat
+ * held to SERVLET_THREADS threads. TMDB is a separate slow HTTP server here, since
+ * the in-process stub would need the very Tomcat threads the blocking path holds.
+ *
+ * Not a unit test, so surefire never picks it up. Run it from the IDE or with:
+ *   mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *       com.iridian.movie.social.loadtest.MovieEndpointLoadScenario \
+ *       [concurrency] [warmupSeconds] [seconds] [cache|servlet|all]
+ */
+public class MovieEndpointLoadScenario {
+
+    private static final List<String> PATHS = List.of(
+            "/api/movies/popular?page=1",
+            "/api/movies/popular?page=2",
+            "/api/movies/popular?with_genres=28",
+            "/api/movies/popular?with_genres=18,80",
+            "/api/movies/upcoming?page=1",
+            "/api/movies/upcoming?with_genres=12",
+            "/api/movies/genres",
+            "/api/movies/movieDetails?id=550",
+            "/api/movies/movieDetails?id=155",
+            "/api/movies/search?query=the");
+
+    private static final int SERVLET_THREADS = 8;
+    private static final Duration SLOW_TMDB_LATENCY = Duration.ofMillis(80);
+    // Good enough for every TMDB endpoint the scenario reaches with caches off
+    private static final byte[] SLOW_TMDB_BODY = ("{\"page\":1,\"total_pages\":1,\"total_results\":1,"
+            + "\"results\":[{\"id\":550,\"title\":\"Fight Club\",\"genre_ids\":[18]}],"
+            + "\"genres\":[{\"id\":18,\"name\":\"Drama\"}],\"id\":550,\"title\":\"Fight Club\"}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int warmupSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        String scenario = args.length > 3 ? args[3] : "all";
+        // Devtools restarts would swap the context out from under the run
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        List<Result> results = new ArrayList<>();
+        if (scenario.equals("cache") || scenario.equals("all")) {
+            results.add(run("cache on", true, concurrency, warmupSeconds, seconds));
+            results.add(run("cache off", false, concurrency, warmupSeconds, seconds));
+        }
+        if (scenario.equals("servlet") || scenario.equals("all")) {
+            HttpServer tmdb = startSlowTmdb();
+            try {
+                String tmdbUrl = "http://localhost:" + tmdb.getAddress().getPort() + "/3";
+                results.add(run("blocking", false, concurrency, warmupSeconds, seconds,
+                        "--tmdb.api.url=" + tmdbUrl, "--server.tomcat.threads.max=" + SERVLET_THREADS,
+                        "--server.tomcat.threads.min-spare=" + SERVLET_THREADS, "--tmdb.response.blocking=true"));
+                results.add(run("async", false, concurrency, warmupSeconds, seconds,
+                        "--tmdb.api.url=" + tmdbUrl, "--server.tomcat.threads.max=" + SERVLET_THREADS,
+                        "--server.tomcat.threads.min-spare=" + SERVLET_THREADS, "--tmdb.response.blocking=false"));
+            } finally {
+                tmdb.stop(0);
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-10s %10s %10s %10s %10s %8s%n", "mode", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (Result result : results) {
+            System.out.printf("%-10s %10.1f %10.2f %10.2f %10.2f %8d%n", result.mode, result.throughput,
+                    result.p50Millis, result.p99Millis, result.maxMillis, result.errors);
+            System.out.println("           status: " + result.statuses + "  X-Cache: " + result.cacheStatuses);
+        }
+    }
+
+    private static Result run(String mode, boolean cacheEnabled, int concurrency, int warmupSeconds, int seconds,
+            String... overrides) throws Exception {
+        int port = freePort();
+        String layers = String.valueOf(cacheEnabled);
+        List<String> properties = new ArrayList<>(List.of(
+                "--spring.profiles.active=tmdb-stub",
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:load-" + port + ";MODE=PostgreSQL",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--jwt.secret=load-test-secret-load-test-secret-load-test-secret",
+                "--spring.mail.host=localhost",
+                "--spring.mail.port=25",
+                "--spring.mail.username=load",
+                "--spring.mail.password=load",
+                "--spring.mail.properties.mail.smtp.auth=false",
+                "--spring.mail.properties.mail.smtp.starttls.enable=false",
+                "--spring.mail.properties.mail.smtp.starttls.required=false",
+                "--spring.mail.properties.mail.smtp.ssl.trust=localhost",
+                "--tmdb.prewarm.enabled=false",
+                "--tmdb.cache.enabled=" + layers,
+                "--tmdb.catalog.enabled=" + layers,
+                "--tmdb.search.local.enabled=" + layers,
+                "--tmdb.upcoming.window.enabled=" + layers,
+                "--tmdb.discover.pool.enabled=" + layers,
+                "--tmdb.discover.pool.initial-delay=0s"));
+        properties.addAll(Arrays.asList(overrides));
+        ConfigurableApplicationContext context = SpringApplication.run(MovieSocialAppApplication.class,
+                properties.toArray(String[]::new));
+        try {
+            String token = context.getBean(JwtUtil.class).generateToken("load-test", "load-test");
+            Driver driver = new Driver("http://localhost:" + port, token, concurrency);
+            driver.drive(Duration.ofSeconds(warmupSeconds));
+            driver.reset();
+            return driver.drive(Duration.ofSeconds(seconds)).summarize(mode);
+        } finally {
+            context.close();
+        }
+    }
+
+    // A TMDB that answers every request after SLOW_TMDB_LATENCY from its own threads
+    private static HttpServer startSlowTmdb() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(SLOW_TMDB_LATENCY.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, SLOW_TMDB_BODY.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(SLOW_TMDB_BODY);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static final class Driver {
+
+        private final String baseUrl;
+        private final String token;
+        private final int concurrency;
+        private final HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        private final List<long[]> latencies = new ArrayList<>();
+        private final Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+        private final Map<String, AtomicLong> cacheStatuses = new ConcurrentHashMap<>();
+        private final AtomicLong errors = new AtomicLong();
+        private long elapsedNanos;
+
+        Driver(String baseUrl, String token, int concurrency) {
+            this.baseUrl = baseUrl;
+            this.token = token;
+            this.concurrency = concurrency;
+        }
+
+        void reset() {
+            latencies.clear();
+            statuses.clear();
+            cacheStatuses.clear();
+            errors.set(0);
+        }
+
+        Driver drive(Duration duration) throws InterruptedException {
+            ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+            long start = System.nanoTime();
+            long deadline = start + duration.toNanos();
+            List<long[]> perWorker = new ArrayList<>();
+
+            for (int i = 0; i < concurrency; i++) {
+                // One slot per request; sized generously and trimmed when the worker stops
+                long[] samples = new long[1 << 16];
+                perWorker.add(samples);
+                workers.submit(() -> {
+                    int n = 0;
+                    while (System.nanoTime() < deadline && n < samples.length - 1) {
+                        String path = PATHS.get(ThreadLocalRandom.current().nextInt(PATHS.size()));
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                                    .header("Authorization", "Bearer " + token)
+                                    .timeout(Duration.ofSeconds(10))
+                                    .GET()
+                                    .build(), HttpResponse.BodyHandlers.ofByteArray());
+                            samples[++n] = System.nanoTime() - sent;
+                            statuses.computeIfAbsent(response.statusCode(), s -> new AtomicLong()).incrementAndGet();
+                            cacheStatuses.computeIfAbsent(response.headers().firstValue("X-Cache").orElse("-"),
+                                    s -> new AtomicLong()).incrementAndGet();
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                    }
+                    samples[0] = n;
+                });
+            }
+            workers.shutdown();
+            workers.awaitTermination(duration.toSeconds() + 30, TimeUnit.SECONDS);
+            elapsedNanos = System.nanoTime() - start;
+
+            for (long[] samples : perWorker) {
+                latencies.add(Arrays.copyOfRange(samples, 1, (int) samples[0] + 1));
+            }
+            return this;
+        }
+
+        Result summarize(String mode) {
+            long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            Result result = new Result();
+            result.mode = mode;
+            result.throughput = all.length / (elapsedNanos / 1e9);
+            result.p50Millis = percentile(all, 0.50);
+            result.p99Millis = percentile(all, 0.99);
+            result.maxMillis = all.length == 0 ? 0 : all[all.length - 1] / 1e6;
+            result.errors = errors.get();
+            result.statuses = new TreeMap<>(statuses);
+            result.cacheStatuses = new TreeMap<>(cacheStatuses);
+            return result;
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    private static final class Result {
+        String mode;
+        double throughput;
+        double p50Millis;
+        double p99Millis;
+        double maxMillis;
+        long errors;
+        Map<Integer, AtomicLong> statuses;
+        Map<String, AtomicLong> cacheStatuses;
+    }
+}
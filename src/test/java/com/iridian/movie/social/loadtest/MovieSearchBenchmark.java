@@ -0,0 +1,210 @@
+package com.iridian.movie.social.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.iridian.movie.social.repository.FavoriteRepository;
+import com.iridian.movie.social.repository.Top10Repository;
+import com.iridian.movie.social.repository.WatchLaterRepository;
+import com.iridian.movie.social.repository.WatchedRepository;
+import com.iridian.movie.social.service.MovieSearchIndexService;
+
+/**
+ * MovieSearchIndexService at 100k titles: index build time, query latency by query
+ * shape, and the share answered locally. Titles are one to five words drawn with
+ * Zipf frequency from a synthetic vocabulary; most come in as TMDB discover pages and
+ * the rest as saved library rows, served by in-memory stand-ins for the repositories.
+ * Also times an incremental refresh after a few rows are saved.
+ *
+ * A plain main() rather than JMH, which is not on this project's classpath. Run with:
+ *   java -Xmx2g -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *       com.iridian.movie.social.loadtest.MovieSearchBenchmark [titles] [libraryShare%]
+ */
+public class MovieSearchBenchmark {
+
+    private static final int VOCABULARY = 20_000;
+    private static final int QUERIES = 5_000;
+    private static final int PAGE_SIZE = 20;
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ra", "the", "sun", "dar", "ven", "or", "is",
+        "an", "tor", "el", "mar", "night", "ri", "to", "star", "ge", "shad"};
+
+    public static void main(String[] args) throws IOException {
+        int titles = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int libraryShare = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        Random random = new Random(11);
+        String[] words = vocabulary(random);
+        double[] frequency = zipf(words.length);
+
+        List<String> generated = new ArrayList<>(titles);
+        for (int i = 0; i < titles; i++) {
+            int length = 1 + random.nextInt(5);
+            StringBuilder title = new StringBuilder();
+            for (int w = 0; w < length; w++) {
+                title.append(w == 0 ? "" : " ").append(capitalize(words[pick(frequency, random)]));
+            }
+            generated.add(title.toString());
+        }
+
+        int libraryTitles = titles * libraryShare / 100;
+        List<Object[]> favorites = new ArrayList<>();
+        for (int i = 0; i < libraryTitles; i++) {
+            favorites.add(libraryRow(i + 1, generated.get(i), i + 1));
+        }
+        MovieSearchIndexService search = new MovieSearchIndexService(
+                repository(FavoriteRepository.class, favorites),
+                repository(WatchedRepository.class, List.of()),
+                repository(Top10Repository.class, List.of()),
+                repository(WatchLaterRepository.class, List.of()),
+                true, 5, 20, 2, titles, Duration.ofHours(6));
+        for (int from = libraryTitles; from < titles; from += PAGE_SIZE) {
+            search.indexTmdbResults(discoverPage(generated, from, Math.min(from + PAGE_SIZE, titles), random));
+        }
+
+        long started = System.nanoTime();
+        search.refresh();
+        System.out.printf("%d titles (%d saved), build %.0f ms, %s%n", titles, libraryTitles,
+                (System.nanoTime() - started) / 1e6, search.getStats());
+
+        Map<String, Function<String, String>> shapes = new LinkedHashMap<>();
+        shapes.put("prefix 2", title -> firstWord(title).substring(0, Math.min(2, firstWord(title).length())));
+        shapes.put("prefix 4", title -> firstWord(title).substring(0, Math.min(4, firstWord(title).length())));
+        shapes.put("word", MovieSearchBenchmark::firstWord);
+        shapes.put("two words", title -> {
+            String[] parts = title.split(" ");
+            return parts.length > 1 ? parts[0] + " " + parts[1].substring(0, Math.min(3, parts[1].length())) : parts[0];
+        });
+        shapes.put("full title", title -> title);
+        shapes.put("no match", title -> "zq" + title.length());
+
+        System.out.printf("%-11s %9s %9s %9s %8s%n", "query", "p50 us", "p99 us", "max us", "local");
+        for (Map.Entry<String, Function<String, String>> shape : shapes.entrySet()) {
+            String[] queries = new String[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                queries[i] = shape.getValue().apply(generated.get(random.nextInt(titles)));
+            }
+            for (String query : queries) {
+                search.search(query);
+            }
+            long[] nanos = new long[QUERIES];
+            int local = 0;
+            for (int i = 0; i < QUERIES; i++) {
+                long t = System.nanoTime();
+                local += search.search(queries[i]) != null ? 1 : 0;
+                nanos[i] = System.nanoTime() - t;
+            }
+            Arrays.sort(nanos);
+            System.out.printf("%-11s %9.1f %9.1f %9.1f %7.0f%%%n", shape.getKey(), nanos[QUERIES / 2] / 1e3,
+                    nanos[QUERIES * 99 / 100] / 1e3, nanos[QUERIES - 1] / 1e3, 100.0 * local / QUERIES);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            int title = random.nextInt(titles);
+            favorites.add(libraryRow(title + 1, generated.get(title), libraryTitles + i + 1));
+        }
+        long rowsBefore = (Long) search.getStats().get("libraryRows");
+        started = System.nanoTime();
+        search.refresh();
+        System.out.printf("incremental refresh after 100 saves: %.0f ms, %d library rows read%n",
+                (System.nanoTime() - started) / 1e6, (Long) search.getStats().get("libraryRows") - rowsBefore);
+    }
+
+    // Serves findSearchableMoviesAfter from rows laid out like the real query
+    @SuppressWarnings("unchecked")
+    private static <T> T repository(Class<T> type, List<Object[]> rows) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "findSearchableMoviesAfter" -> {
+                    long after = (Long) args[0];
+                    return rows.stream().filter(row -> (Long) row[7] > after).toList();
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "toString" -> {
+                    return type.getSimpleName();
+                }
+                default -> throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static Object[] libraryRow(long movieId, String title, long rowId) {
+        return new Object[]{movieId, title, "/poster.jpg", 7.0, "2024-01-01", "", List.of(18), rowId};
+    }
+
+    private static byte[] discoverPage(List<String> titles, int from, int to, Random random) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = new JsonFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeNumberField("page", 1);
+            generator.writeArrayFieldStart("results");
+            for (int i = from; i < to; i++) {
+                generator.writeStartObject();
+                generator.writeNumberField("id", i + 1);
+                generator.writeStringField("title", titles.get(i));
+                generator.writeStringField("poster_path", "/poster.jpg");
+                generator.writeNumberField("vote_average", 7.0);
+                generator.writeNumberField("popularity", random.nextDouble() * 100);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+
+    private static String[] vocabulary(Random random) {
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < words.length; i++) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 1 + random.nextInt(3);
+            for (int s = 0; s < syllables; s++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words[i] = word.toString();
+        }
+        return words;
+    }
+
+    // Cumulative weights of 1 / rank
+    private static double[] zipf(int size) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 1; rank <= size; rank++) {
+            sum += 1.0 / rank;
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int pick(double[] cumulative, Random random) {
+        int at = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(at >= 0 ? at : -at - 1, cumulative.length - 1);
+    }
+
+    private static String firstWord(String title) {
+        int space = title.indexOf(' ');
+        return space < 0 ? title : title.substring(0, space);
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
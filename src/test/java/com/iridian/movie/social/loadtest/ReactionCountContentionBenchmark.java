@@ -0,0 +1,142 @@
+package com.iridian.movie.social.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.iridian.movie.social.model.EntryType;
+import com.iridian.movie.social.util.ReactionCountCache;
+
+/**
+ * Contended increments on a single hot entry: ReactionCountCache (LongAdder per
+ * counter) against a plain AtomicLong and a synchronized counter, at 1 to 2x the
+ * available cores. Each run also reads the entry on one in every eight operations,
+ * like a page being viewed while it is being liked.
+ *
+ * A plain main() rather than JMH, which is not on this project's classpath. Each
+ * measurement is preceded by a warmup run of the same length. Run with:
+ *   java -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *       com.iridian.movie.social.loadtest.ReactionCountContentionBenchmark [seconds]
+ */
+public class ReactionCountContentionBenchmark {
+
+    private static final long HOT_ENTRY = 42;
+
+    private interface Counter {
+        void increment();
+
+        long read();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> threadCounts = new ArrayList<>(List.of(1, 2, 4, 8));
+        threadCounts.removeIf(threads -> threads > cores * 2);
+        if (!threadCounts.contains(cores * 2)) {
+            threadCounts.add(cores * 2);
+        }
+
+        System.out.printf("%-8s %18s %18s %18s%n", "threads", "cache Mops/s", "AtomicLong Mops/s", "synchronized Mops/s");
+        for (int threads : threadCounts) {
+            double cache = measure(threads, seconds, cacheCounter());
+            double atomic = measure(threads, seconds, atomicCounter());
+            double locked = measure(threads, seconds, synchronizedCounter());
+            System.out.printf("%-8d %18.2f %18.2f %18.2f%n", threads, cache, atomic, locked);
+        }
+    }
+
+    private static Counter cacheCounter() {
+        ReactionCountCache cache = new ReactionCountCache(1_000, Duration.ofHours(1));
+        cache.put(HOT_ENTRY, EntryType.FAVORITE, 0, 0);
+        return new Counter() {
+            @Override
+            public void increment() {
+                cache.add(HOT_ENTRY, EntryType.FAVORITE, 1, 0);
+            }
+
+            @Override
+            public long read() {
+                return cache.get(HOT_ENTRY, EntryType.FAVORITE)[0];
+            }
+        };
+    }
+
+    private static Counter atomicCounter() {
+        AtomicLong likes = new AtomicLong();
+        return new Counter() {
+            @Override
+            public void increment() {
+                likes.incrementAndGet();
+            }
+
+            @Override
+            public long read() {
+                return likes.get();
+            }
+        };
+    }
+
+    private static Counter synchronizedCounter() {
+        return new Counter() {
+            private long likes;
+
+            @Override
+            public synchronized void increment() {
+                likes++;
+            }
+
+            @Override
+            public synchronized long read() {
+                return likes;
+            }
+        };
+    }
+
+    // Returns millions of operations per second across all threads
+    private static double measure(int threads, int seconds, Counter counter) throws InterruptedException {
+        run(threads, seconds, counter);
+        return run(threads, seconds, counter) / (seconds * 1e6);
+    }
+
+    private static long run(int threads, int seconds, Counter counter) throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong total = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        long[] sink = new long[threads];
+        for (int t = 0; t < threads; t++) {
+            int slot = t;
+            Thread worker = new Thread(() -> {
+                long ops = 0;
+                long seen = 0;
+                try {
+                    start.await();
+                    while (!stop.get()) {
+                        if ((ops & 7) == 7) {
+                            seen += counter.read();
+                        } else {
+                            counter.increment();
+                        }
+                        ops++;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                sink[slot] = seen;
+                total.addAndGet(ops);
+                done.countDown();
+            });
+            worker.setDaemon(true);
+            worker.start();
+        }
+        start.countDown();
+        Thread.sleep(Duration.ofSeconds(seconds).toMillis());
+        stop.set(true);
+        done.await();
+        return total.get();
+    }
+}
@@ -0,0 +1,161 @@
+package com.iridian.movie.social.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.iridian.movie.social.MovieSocialAppApplication;
+import com.iridian.movie.social.service.MovieCommentLikeService;
+import com.iridian.movie.social.service.ReactionCountService;
+import com.iridian.movie.social.service.ReactionWriteBehindService;
+
+/**
+ * Many threads toggling reactions on the same entry, with a handful of users so the
+ * same user regularly double-clicks from two threads at once. Reports failed toggles
+ * by exception type, then checks that reaction_counts matches movie_comment_likes.
+ *
+ * Against PostgreSQL this exercises the single-statement toggle and should report no
+ * failures; against the default in-memory H2 it runs the read-then-write path.
+ * Arguments starting with -- are passed to the application, e.g.
+ * --reactions.write-behind.enabled=true to check the write-behind path, in which
+ * case the check waits for the queue to drain before comparing.
+ * Not a unit test, so surefire never picks it up. Run with:
+ *   java -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *       com.iridian.movie.social.loadtest.ReactionToggleConcurrencyCheck \
+ *       [threads] [togglesPerThread] [jdbcUrl user password] [--property=value ...]
+ * The PostgreSQL database should be a scratch one; the check creates its own rows.
+ */
+public class ReactionToggleConcurrencyCheck {
+
+    private static final int USERS = 6;
+
+    public static void main(String[] allArgs) throws Exception {
+        String[] args = Arrays.stream(allArgs).filter(arg -> !arg.startsWith("--")).toArray(String[]::new);
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int togglesPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        int port = freePort();
+        List<String> appArgs = new ArrayList<>(List.of(
+                "--spring.profiles.active=tmdb-stub",
+                "--server.port=" + port,
+                "--spring.jpa.show-sql=false",
+                "--jwt.secret=load-test-secret-load-test-secret-load-test-secret",
+                "--spring.mail.host=localhost",
+                "--spring.mail.port=25",
+                "--spring.mail.username=load",
+                "--spring.mail.password=load",
+                "--spring.mail.properties.mail.smtp.auth=false",
+                "--spring.mail.properties.mail.smtp.starttls.enable=false",
+                "--spring.mail.properties.mail.smtp.starttls.required=false",
+                "--spring.mail.properties.mail.smtp.ssl.trust=localhost",
+                "--spring.datasource.hikari.maximum-pool-size=" + Math.max(10, threads),
+                "--tmdb.prewarm.enabled=false",
+                "--tmdb.discover.pool.enabled=false",
+                "--tmdb.upcoming.window.enabled=false",
+                "--tmdb.search.local.enabled=false",
+                "--reactions.counts.reconcile.initial-delay=1h"));
+        Arrays.stream(allArgs).filter(arg -> arg.startsWith("--")).forEach(appArgs::add);
+        if (args.length > 4) {
+            appArgs.add("--spring.datasource.url=" + args[2]);
+            appArgs.add("--spring.datasource.username=" + args[3]);
+            appArgs.add("--spring.datasource.password=" + args[4]);
+        } else {
+            appArgs.add("--spring.datasource.url=jdbc:h2:mem:toggle-" + port + ";MODE=PostgreSQL");
+            appArgs.add("--spring.datasource.driver-class-name=org.h2.Driver");
+            appArgs.add("--spring.datasource.username=sa");
+            appArgs.add("--spring.datasource.password=");
+            appArgs.add("--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+        }
+
+        ConfigurableApplicationContext context = SpringApplication.run(MovieSocialAppApplication.class,
+                appArgs.toArray(String[]::new));
+        try {
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            MovieCommentLikeService likeService = context.getBean(MovieCommentLikeService.class);
+            context.getBean(ReactionCountService.class).reconcile();
+            long entryId = seed(jdbc, port);
+
+            Map<String, AtomicLong> outcomes = new ConcurrentHashMap<>();
+            ExecutorService workers = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            long begin = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                workers.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < togglesPerThread; i++) {
+                        String userId = "toggle-user-" + port + "-" + random.nextInt(USERS);
+                        String outcome;
+                        try {
+                            outcome = (String) likeService.toggleLike(entryId, "FAVORITE", userId, random.nextBoolean())
+                                    .get("action");
+                        } catch (RuntimeException e) {
+                            outcome = "failed: " + e.getClass().getSimpleName();
+                        }
+                        outcomes.computeIfAbsent(outcome, o -> new AtomicLong()).incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            workers.shutdown();
+            workers.awaitTermination(10, TimeUnit.MINUTES);
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            ReactionWriteBehindService writeBehind = context.getBean(ReactionWriteBehindService.class);
+            while (writeBehind.isEnabled() && ((Number) writeBehind.getStats().get("pending")).intValue() > 0) {
+                Thread.sleep(50);
+            }
+
+            Map<String, Object> actual = jdbc.queryForMap("SELECT "
+                    + "COUNT(CASE WHEN is_like THEN 1 END) AS likes, "
+                    + "COUNT(CASE WHEN NOT is_like THEN 1 END) AS dislikes "
+                    + "FROM movie_comment_likes WHERE movie_entry_id = ? AND entry_type = 'FAVORITE'", entryId);
+            List<Map<String, Object>> counted = jdbc.queryForList("SELECT likes, dislikes FROM reaction_counts "
+                    + "WHERE movie_entry_id = ? AND entry_type = 'FAVORITE'", entryId);
+
+            System.out.println();
+            System.out.printf("%d toggles from %d threads in %.2fs (%.0f/s)%n", threads * togglesPerThread,
+                    threads, seconds, threads * togglesPerThread / seconds);
+            System.out.println("outcomes:        " + new TreeMap<>(outcomes));
+            System.out.println("likes table:     " + actual);
+            System.out.println("reaction_counts: " + (counted.isEmpty() ? "{}" : counted.get(0)));
+            if (writeBehind.isEnabled()) {
+                System.out.println("write-behind:    " + new TreeMap<>(writeBehind.getStats()));
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    // One owner with one favorite; the reacting users only need ids
+    private static long seed(JdbcTemplate jdbc, int port) {
+        String ownerId = "toggle-owner-" + port;
+        jdbc.update("INSERT INTO users (user_id, username, email, password_hash, share_enabled) VALUES (?, ?, ?, ?, ?)",
+                ownerId, ownerId, ownerId + "@example.com", "x", false);
+        jdbc.update("INSERT INTO favorites (user_id, movie_id, title, created_at) VALUES (?, ?, ?, CURRENT_TIMESTAMP)",
+                ownerId, 550L, "Fight Club");
+        return jdbc.queryForObject("SELECT MAX(id) FROM favorites WHERE user_id = ?", Long.class, ownerId);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.iridian.movie.social.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.iridian.movie.social.model.EntryType;
+import com.iridian.movie.social.util.LikeSimilarityIndex;
+
+/**
+ * LikeSimilarityIndex at 100k users: build time and heap, top-10 query latency by
+ * overlap and by Jaccard, and incremental update throughput. Entry popularity is
+ * Zipf-distributed, so a few entries are liked by a large share of users, which is
+ * the worst case for the posting-list walk.
+ *
+ * Sampled answers are checked against a HashSet intersection with every other user,
+ * whose latency is printed as the brute-force baseline.
+ *
+ * A plain main() rather than JMH, which is not on this project's classpath. Run with:
+ *   java -Xmx2g -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *       com.iridian.movie.social.loadtest.SimilarUsersBenchmark [users] [entries] [likesPerUser]
+ */
+public class SimilarUsersBenchmark {
+
+    private static final int QUERIES = 2_000;
+    private static final int CHECKED = 50;
+    private static final int UPDATES = 500_000;
+
+    public static void main(String[] args) {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int entries = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        int likesPerUser = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        Random random = new Random(7);
+        double[] popularity = zipf(entries, 1.0);
+
+        List<Set<Long>> likes = new ArrayList<>(users);
+        long total = 0;
+        for (int u = 0; u < users; u++) {
+            int count = 1 + random.nextInt(likesPerUser * 2);
+            Set<Long> liked = new HashSet<>();
+            for (int i = 0; i < count; i++) {
+                liked.add(pick(popularity, random));
+            }
+            likes.add(liked);
+            total += liked.size();
+        }
+        System.out.printf("%d users, %d entries, %d likes%n", users, entries, total);
+
+        System.gc();
+        long heapBefore = usedHeap();
+        long started = System.nanoTime();
+        LikeSimilarityIndex index = new LikeSimilarityIndex();
+        for (int u = 0; u < users; u++) {
+            for (long entryId : likes.get(u)) {
+                index.append(userId(u), EntryType.FAVORITE, entryId);
+            }
+        }
+        index.compact();
+        long buildMillis = (System.nanoTime() - started) / 1_000_000;
+        System.gc();
+        System.out.printf("build %d ms, ~%d MB heap, %s%n", buildMillis, (usedHeap() - heapBefore) >> 20, index.getStats());
+
+        for (boolean byJaccard : new boolean[]{false, true}) {
+            for (int i = 0; i < QUERIES; i++) {
+                index.similarTo(userId(random.nextInt(users)), 10, byJaccard);
+            }
+            long[] nanos = new long[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                String userId = userId(random.nextInt(users));
+                long t = System.nanoTime();
+                index.similarTo(userId, 10, byJaccard);
+                nanos[i] = System.nanoTime() - t;
+            }
+            Arrays.sort(nanos);
+            System.out.printf("top-10 by %-8s p50 %6.2f ms  p99 %6.2f ms  max %6.2f ms%n", byJaccard ? "jaccard" : "overlap",
+                    nanos[QUERIES / 2] / 1e6, nanos[QUERIES * 99 / 100] / 1e6, nanos[QUERIES - 1] / 1e6);
+        }
+
+        long bruteNanos = 0;
+        for (int i = 0; i < CHECKED; i++) {
+            int user = random.nextInt(users);
+            long t = System.nanoTime();
+            Map<String, Integer> expected = bruteForce(likes, user);
+            bruteNanos += System.nanoTime() - t;
+            for (LikeSimilarityIndex.Match match : index.similarTo(userId(user), 10, false)) {
+                if (expected.get(match.userId()) != match.commonLikes()) {
+                    throw new IllegalStateException("Overlap mismatch for " + userId(user) + " and " + match.userId());
+                }
+            }
+            int best = expected.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+            List<LikeSimilarityIndex.Match> top = index.similarTo(userId(user), 1, false);
+            if (best != (top.isEmpty() ? 0 : top.get(0).commonLikes())) {
+                throw new IllegalStateException("Best overlap mismatch for " + userId(user));
+            }
+        }
+        System.out.printf("brute force (intersect with every user) %.2f ms per query; %d sampled answers match%n",
+                bruteNanos / 1e6 / CHECKED, CHECKED);
+
+        started = System.nanoTime();
+        for (int i = 0; i < UPDATES; i++) {
+            index.set(userId(random.nextInt(users)), EntryType.FAVORITE, pick(popularity, random), random.nextBoolean());
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("%d like/unlike updates, %.0f updates/s%n", UPDATES, UPDATES / seconds);
+    }
+
+    private static Map<String, Integer> bruteForce(List<Set<Long>> likes, int user) {
+        Map<String, Integer> overlap = new HashMap<>();
+        Set<Long> mine = likes.get(user);
+        for (int other = 0; other < likes.size(); other++) {
+            if (other == user) {
+                continue;
+            }
+            int common = 0;
+            for (long entryId : likes.get(other)) {
+                if (mine.contains(entryId)) {
+                    common++;
+                }
+            }
+            if (common > 0) {
+                overlap.put(userId(other), common);
+            }
+        }
+        return overlap;
+    }
+
+    // Cumulative weights of 1 / rank^exponent
+    private static double[] zipf(int entries, double exponent) {
+        double[] cumulative = new double[entries];
+        double sum = 0;
+        for (int rank = 1; rank <= entries; rank++) {
+            sum += 1 / Math.pow(rank, exponent);
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < entries; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static long pick(double[] cumulative, Random random) {
+        int at = Arrays.binarySearch(cumulative, random.nextDouble());
+        return (at >= 0 ? at : -at - 1) + 1L;
+    }
+
+    private static String userId(int user) {
+        return "user-" + user;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
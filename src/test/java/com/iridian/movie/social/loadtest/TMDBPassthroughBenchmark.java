@@ -0,0 +1,162 @@
+package com.iridian.movie.social.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.iridian.movie.social.util.TMDBProjection;
+import com.iridian.movie.social.util.TMDBResponseCache;
+
+/**
+ * Allocation and throughput of writing one cached TMDB body to the response, per
+ * mode: decoding it into a String and encoding it again (tmdb.response.passthrough=false),
+ * relaying the cached bytes to a client that accepts gzip (passthrough/gzip) or one
+ * that does not (passthrough/identity), and slimming it with ?fields= either by
+ * TMDBProjection's streaming pass or by a Jackson tree, for comparison.
+ *
+ * Bodies are the stub fixtures, stored through a TMDBResponseCache with the default
+ * 1 KB compression threshold, so every mode reads them the way MovieController does;
+ * bodies kept gzipped are inflated again by Entry.getBody(). The discover page is
+ * also measured repeated to the size of a long TMDB page. Bytes per call come from
+ * the thread's allocation counter and include the output, which is copied through
+ * an 8 KB buffer and dropped.
+ *
+ * A plain main() rather than JMH, which is not on this project's classpath. Each
+ * measurement is preceded by a warmup run of the same length. Run with:
+ *   java -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *       com.iridian.movie.social.loadtest.TMDBPassthroughBenchmark [seconds]
+ */
+public class TMDBPassthroughBenchmark {
+
+    private static final Set<String> FIELDS = Set.of("id", "title", "poster_path");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private interface Mode {
+        void write(TMDBResponseCache.Entry entry, OutputStream out) throws IOException;
+    }
+
+    // Copies into a fixed buffer the way a servlet response buffer would, then drops it
+    private static final class Discard extends OutputStream {
+
+        final byte[] buffer = new byte[8192];
+        long written;
+
+        @Override
+        public void write(int b) {
+            buffer[(int) (written++ % buffer.length)] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            while (len > 0) {
+                int chunk = Math.min(len, buffer.length);
+                System.arraycopy(b, off, buffer, 0, chunk);
+                off += chunk;
+                len -= chunk;
+                written += chunk;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+
+        TMDBResponseCache cache = new TMDBResponseCache(DataSize.ofMegabytes(32), Duration.ofHours(24),
+                DataSize.ofKilobytes(1), true);
+        byte[] discover = fixture("discover-movie.json");
+        Map<String, TMDBResponseCache.Entry> bodies = new LinkedHashMap<>();
+        bodies.put("details", cache.put("details", fixture("movie-details.json"), Duration.ofHours(1)));
+        bodies.put("discover", cache.put("discover", discover, Duration.ofHours(1)));
+        bodies.put("discover x8", cache.put("discover x8", repeatResults(discover, 8), Duration.ofHours(1)));
+
+        Map<String, Mode> modes = new LinkedHashMap<>();
+        modes.put("string", (entry, out) -> out.write(new String(entry.getBody(), StandardCharsets.UTF_8)
+                .getBytes(StandardCharsets.UTF_8)));
+        modes.put("passthrough/gzip", (entry, out) -> out.write(entry.isCompressed() ? entry.getGzipBody()
+                : entry.getBody()));
+        modes.put("passthrough/identity", (entry, out) -> out.write(entry.getBody()));
+        modes.put("project/stream", (entry, out) -> out.write(TMDBProjection.project(entry.getBody(), FIELDS)));
+        modes.put("project/tree", (entry, out) -> out.write(projectWithTree(entry.getBody())));
+
+        System.out.printf("%-12s %8s %8s %-20s %12s %12s %10s%n", "body", "bytes", "stored", "mode", "calls/s",
+                "alloc B/call", "MB/s out");
+        for (Map.Entry<String, TMDBResponseCache.Entry> body : bodies.entrySet()) {
+            TMDBResponseCache.Entry entry = body.getValue();
+            int stored = entry.isCompressed() ? entry.getGzipBody().length : entry.getBody().length;
+            for (Map.Entry<String, Mode> mode : modes.entrySet()) {
+                if (mode.getKey().startsWith("project") && body.getKey().equals("details")) {
+                    continue;
+                }
+                measure(entry, mode.getValue(), seconds);
+                double[] result = measure(entry, mode.getValue(), seconds);
+                System.out.printf("%-12s %8d %8d %-20s %12.0f %12.0f %10.1f%n", body.getKey(),
+                        entry.getBody().length, stored, mode.getKey(), result[0], result[1], result[2]);
+            }
+        }
+    }
+
+    // {calls per second, bytes allocated per call, MB written per second}
+    private static double[] measure(TMDBResponseCache.Entry entry, Mode mode, int seconds) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        Discard out = new Discard();
+        long calls = 0;
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long started = System.nanoTime();
+        long deadline = started + seconds * 1_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < 100; i++) {
+                mode.write(entry, out);
+            }
+            calls += 100;
+        }
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        return new double[]{calls / elapsed, (double) allocated / calls, out.written / elapsed / (1 << 20)};
+    }
+
+    private static byte[] projectWithTree(byte[] body) throws IOException {
+        JsonNode root = MAPPER.readTree(body);
+        for (JsonNode movie : root.path("results")) {
+            Iterator<String> names = movie.fieldNames();
+            while (names.hasNext()) {
+                if (!FIELDS.contains(names.next())) {
+                    names.remove();
+                }
+            }
+        }
+        return MAPPER.writeValueAsBytes(root);
+    }
+
+    private static byte[] repeatResults(byte[] body, int times) throws IOException {
+        ObjectNode root = (ObjectNode) MAPPER.readTree(body);
+        ArrayNode results = (ArrayNode) root.get("results");
+        ArrayNode page = results.deepCopy();
+        for (int i = 1; i < times; i++) {
+            results.addAll(page.deepCopy());
+        }
+        return MAPPER.writeValueAsBytes(root);
+    }
+
+    private static byte[] fixture(String name) throws IOException {
+        try (InputStream in = TMDBPassthroughBenchmark.class.getResourceAsStream("/tmdb-stub/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing stub fixture " + name);
+            }
+            return in.readAllBytes();
+        }
+    }
+}
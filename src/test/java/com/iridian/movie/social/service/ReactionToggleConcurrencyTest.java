@@ -0,0 +1,153 @@
+package com.iridian.movie.social.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.iridian.movie.social.model.EntryType;
+
+// Many threads toggling one entry for a few users against a real PostgreSQL, through
+// both the single-statement toggle and the read-then-write one. Skipped without Docker
+@SpringBootTest(properties = {
+    "spring.profiles.active=tmdb-stub",
+    "spring.jpa.show-sql=false",
+    "jwt.secret=reaction-test-secret-reaction-test-secret-reaction",
+    "spring.mail.host=localhost",
+    "spring.mail.port=25",
+    "spring.mail.username=test",
+    "spring.mail.password=test",
+    "spring.mail.properties.mail.smtp.auth=false",
+    "spring.mail.properties.mail.smtp.starttls.enable=false",
+    "spring.mail.properties.mail.smtp.starttls.required=false",
+    "spring.mail.properties.mail.smtp.ssl.trust=localhost",
+    "spring.datasource.hikari.maximum-pool-size=20",
+    "tmdb.prewarm.enabled=false",
+    "tmdb.discover.pool.enabled=false",
+    "tmdb.upcoming.window.enabled=false",
+    "tmdb.search.local.enabled=false",
+    "reactions.counts.reconcile.initial-delay=1h",
+    "reactions.similar.initial-delay=1h",
+    "reactions.trending.initial-delay=1h"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class ReactionToggleConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int TOGGLES_PER_THREAD = 100;
+    private static final int USERS = 4;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private MovieCommentLikeService likeService;
+
+    @Autowired
+    private ReactionCountService reactionCounts;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private long entryId;
+
+    @BeforeEach
+    void seedEntry() {
+        String ownerId = "owner-" + System.nanoTime();
+        jdbc.update("INSERT INTO users (user_id, username, email, password_hash, share_enabled) VALUES (?, ?, ?, ?, ?)",
+                ownerId, ownerId, ownerId + "@example.com", "x", false);
+        jdbc.update("INSERT INTO favorites (user_id, movie_id, title, created_at) VALUES (?, ?, ?, CURRENT_TIMESTAMP)",
+                ownerId, 550L, "Fight Club");
+        entryId = jdbc.queryForObject("SELECT MAX(id) FROM favorites WHERE user_id = ?", Long.class, ownerId);
+        reactionCounts.reconcile();
+    }
+
+    @AfterEach
+    void restoreToggle() {
+        setSingleStatement(true);
+    }
+
+    @Test
+    void singleStatementToggleKeepsCountsExact() throws InterruptedException {
+        setSingleStatement(true);
+        toggleConcurrentlyAndCheckCounts();
+    }
+
+    @Test
+    void readThenWriteToggleKeepsCountsExact() throws InterruptedException {
+        setSingleStatement(false);
+        toggleConcurrentlyAndCheckCounts();
+    }
+
+    private void toggleConcurrentlyAndCheckCounts() throws InterruptedException {
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        Queue<Object> actions = new ConcurrentLinkedQueue<>();
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < THREADS; t++) {
+            workers.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    for (int i = 0; i < TOGGLES_PER_THREAD; i++) {
+                        String userId = "user-" + entryId + "-" + random.nextInt(USERS);
+                        actions.add(likeService.toggleLike(entryId, "FAVORITE", userId, random.nextBoolean())
+                                .get("action"));
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+        }
+        start.countDown();
+        workers.shutdown();
+        assertThat(workers.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(failures).isEmpty();
+        assertThat(actions).hasSize(THREADS * TOGGLES_PER_THREAD);
+        assertThat(Set.copyOf(actions)).isSubsetOf("added", "removed", "switched", "unchanged");
+
+        Map<String, Object> actual = jdbc.queryForMap("SELECT "
+                + "COUNT(CASE WHEN is_like THEN 1 END) AS likes, "
+                + "COUNT(CASE WHEN NOT is_like THEN 1 END) AS dislikes "
+                + "FROM movie_comment_likes WHERE movie_entry_id = ? AND entry_type = 'FAVORITE'", entryId);
+        long likes = ((Number) actual.get("likes")).longValue();
+        long dislikes = ((Number) actual.get("dislikes")).longValue();
+        assertThat(likes + dislikes).isLessThanOrEqualTo(USERS);
+
+        List<Map<String, Object>> stored = jdbc.queryForList("SELECT likes, dislikes FROM reaction_counts "
+                + "WHERE movie_entry_id = ? AND entry_type = 'FAVORITE'", entryId);
+        assertThat(stored).hasSize(1);
+        assertThat(((Number) stored.get(0).get("likes")).longValue()).isEqualTo(likes);
+        assertThat(((Number) stored.get(0).get("dislikes")).longValue()).isEqualTo(dislikes);
+
+        assertThat(reactionCounts.getCounts(entryId, EntryType.FAVORITE)).containsExactly(likes, dislikes);
+    }
+
+    private void setSingleStatement(boolean enabled) {
+        MovieCommentLikeService target = AopTestUtils.getTargetObject(likeService);
+        ReflectionTestUtils.setField(target, "singleStatementToggle", enabled);
+    }
+}
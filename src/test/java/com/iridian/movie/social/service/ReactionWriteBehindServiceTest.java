@@ -0,0 +1,205 @@
+package com.iridian.movie.social.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.iridian.movie.social.model.EntryType;
+import com.iridian.movie.social.model.MovieCommentLike;
+
+// The flusher against an in-memory H2 copy of the two tables it writes; the services
+// it notifies after a commit are mocks
+class ReactionWriteBehindServiceTest {
+
+    private static final long ENTRY = 42;
+    private static final UnaryOperator<Boolean> LIKE = current -> Boolean.TRUE.equals(current) ? null : Boolean.TRUE;
+    private static final UnaryOperator<Boolean> DISLIKE = current -> Boolean.FALSE.equals(current) ? null : Boolean.FALSE;
+    private static final Supplier<MovieCommentLike> NO_ROW = () -> null;
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private ReactionWriteBehindService writeBehind;
+
+    @BeforeEach
+    void createTables() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:write-behind-" + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE movie_comment_likes (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "user_id VARCHAR(64) NOT NULL, movie_entry_id BIGINT NOT NULL, entry_type VARCHAR(16) NOT NULL, "
+                + "movie_owner_id VARCHAR(64) NOT NULL, is_like BOOLEAN NOT NULL, created_at TIMESTAMP, "
+                + "UNIQUE (user_id, movie_entry_id, entry_type))");
+        jdbc.execute("CREATE TABLE reaction_counts (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "movie_entry_id BIGINT NOT NULL, entry_type VARCHAR(16) NOT NULL, likes BIGINT NOT NULL, "
+                + "dislikes BIGINT NOT NULL, UNIQUE (movie_entry_id, entry_type))");
+    }
+
+    @AfterEach
+    void stopFlusher() throws InterruptedException {
+        if (writeBehind != null) {
+            writeBehind.stop();
+        }
+        jdbc.execute("SHUTDOWN");
+    }
+
+    @Test
+    void collapsedDoubleToggleWritesNothing() {
+        writeBehind = started("async", Duration.ofMillis(200), 10);
+
+        assertThat(toggle("user-1", LIKE, NO_ROW)).isEqualTo(new ReactionWriteBehindService.Change(null, true));
+        assertThat(toggle("user-1", LIKE, NO_ROW)).isEqualTo(new ReactionWriteBehindService.Change(true, null));
+        assertThat(writeBehind.unflushedCounts(ENTRY, EntryType.FAVORITE)).containsExactly(0, 0);
+
+        awaitUntil(() -> (Integer) writeBehind.getStats().get("pending") == 0);
+        assertThat(writeBehind.getStats()).containsEntry("collapsed", 1L).containsEntry("flushes", 0L);
+        assertThat(likeRows()).isZero();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM reaction_counts", Integer.class)).isZero();
+    }
+
+    @Test
+    void fullQueueRejectsAfterOfferTimeout() {
+        // Not started, so nothing drains the single queue slot
+        writeBehind = service("async", Duration.ofMillis(100), 1, Duration.ofMillis(150));
+        toggle("user-1", LIKE, NO_ROW);
+
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> toggle("user-2", LIKE, NO_ROW))
+                .isInstanceOf(ReactionWriteBehindService.RejectedException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isGreaterThanOrEqualTo(140L);
+
+        assertThat(writeBehind.getStats()).containsEntry("rejected", 1L).containsEntry("pending", 1);
+        assertThat(writeBehind.pendingReactions("user-2", List.of(ENTRY), EntryType.FAVORITE)).isEmpty();
+        assertThat(writeBehind.unflushedCounts(ENTRY, EntryType.FAVORITE)).containsExactly(1, 0);
+    }
+
+    @Test
+    void staleStoredStateIsRebasedAndRetried() {
+        insertLike("user-1", true);
+        jdbc.update("INSERT INTO reaction_counts (movie_entry_id, entry_type, likes, dislikes) VALUES (?, 'FAVORITE', 1, 0)",
+                ENTRY);
+        writeBehind = started("async", Duration.ofMillis(20), 10);
+
+        // Believes there is no row, so the insert hits the unique key and the pair is re-read
+        assertThat(toggle("user-1", DISLIKE, NO_ROW)).isEqualTo(new ReactionWriteBehindService.Change(null, false));
+
+        awaitUntil(() -> (Integer) writeBehind.getStats().get("pending") == 0);
+        assertThat(writeBehind.getStats()).containsEntry("rebased", 1L).containsEntry("failedFlushes", 1L)
+                .containsEntry("dropped", 0L);
+        assertThat(jdbc.queryForList("SELECT is_like FROM movie_comment_likes", Boolean.class)).containsExactly(false);
+        assertThat(jdbc.queryForMap("SELECT likes, dislikes FROM reaction_counts"))
+                .containsEntry("LIKES", 0L).containsEntry("DISLIKES", 1L);
+        assertThat(writeBehind.unflushedCounts(ENTRY, EntryType.FAVORITE)).containsExactly(0, 0);
+    }
+
+    @Test
+    void pairThatKeepsFailingIsDroppedAndItsCountsReleased() {
+        writeBehind = started("async", Duration.ofMillis(20), 10);
+
+        // movie_owner_id is NOT NULL, so the insert fails however often it is retried
+        writeBehind.change("user-1", ENTRY, EntryType.FAVORITE, null, NO_ROW, LIKE);
+        assertThat(writeBehind.pendingReactions("user-1", List.of(ENTRY), EntryType.FAVORITE))
+                .containsEntry(ENTRY, true);
+
+        awaitUntil(() -> (Long) writeBehind.getStats().get("dropped") == 1L);
+        assertThat(writeBehind.unflushedCounts(ENTRY, EntryType.FAVORITE)).containsExactly(0, 0);
+        assertThat(writeBehind.pendingReactions("user-1", List.of(ENTRY), EntryType.FAVORITE)).isEmpty();
+        assertThat(likeRows()).isZero();
+    }
+
+    @Test
+    void syncWaiterIsReleasedOnlyOnceItsRowCommitted() {
+        writeBehind = started("sync", Duration.ofMillis(300), 10);
+
+        long started = System.nanoTime();
+        toggle("user-1", LIKE, NO_ROW);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isGreaterThanOrEqualTo(250L);
+        assertThat(jdbc.queryForList("SELECT is_like FROM movie_comment_likes", Boolean.class)).containsExactly(true);
+        assertThat(jdbc.queryForMap("SELECT likes, dislikes FROM reaction_counts"))
+                .containsEntry("LIKES", 1L).containsEntry("DISLIKES", 0L);
+    }
+
+    @Test
+    void syncWaiterKeepsWaitingThroughARetriedBatch() {
+        insertLike("user-1", true);
+        writeBehind = started("sync", Duration.ofMillis(200), 10);
+
+        // Shares a batch with a pair whose stored state is wrong, which fails the first write
+        CompletableFuture<ReactionWriteBehindService.Change> bystander =
+                CompletableFuture.supplyAsync(() -> toggle("user-2", LIKE, NO_ROW));
+        ReactionWriteBehindService.Change stale = toggle("user-1", DISLIKE, NO_ROW);
+
+        assertThat(stale).isEqualTo(new ReactionWriteBehindService.Change(null, false));
+        assertThat(bystander.join()).isEqualTo(new ReactionWriteBehindService.Change(null, true));
+        assertThat(jdbc.queryForList("SELECT user_id || ':' || is_like FROM movie_comment_likes ORDER BY user_id",
+                String.class)).containsExactly("user-1:FALSE", "user-2:TRUE");
+        assertThat((Long) writeBehind.getStats().get("failedFlushes")).isGreaterThanOrEqualTo(1L);
+    }
+
+    @Test
+    void syncWaiterFailsOnlyWhenThePairIsDropped() {
+        writeBehind = started("sync", Duration.ofMillis(20), 10);
+
+        assertThatThrownBy(() -> writeBehind.change("user-1", ENTRY, EntryType.FAVORITE, null, NO_ROW, LIKE))
+                .hasMessageContaining("database rejected the reaction");
+        assertThat(writeBehind.getStats()).containsEntry("dropped", 1L).containsEntry("failedFlushes", 3L);
+    }
+
+    private ReactionWriteBehindService started(String durability, Duration flushInterval, int queueCapacity) {
+        ReactionWriteBehindService service = service(durability, flushInterval, queueCapacity, Duration.ofMillis(50));
+        service.start();
+        return service;
+    }
+
+    private ReactionWriteBehindService service(String durability, Duration flushInterval, int queueCapacity,
+            Duration offerTimeout) {
+        ReactionCountService reactionCounts = mock(ReactionCountService.class);
+        when(reactionCounts.isEnabled()).thenReturn(true);
+        return new ReactionWriteBehindService(dataSource, reactionCounts, mock(SimilarUsersService.class),
+                mock(TrendingService.class), true, durability, flushInterval, 500, queueCapacity, offerTimeout,
+                Duration.ofSeconds(5));
+    }
+
+    private ReactionWriteBehindService.Change toggle(String userId, UnaryOperator<Boolean> next,
+            Supplier<MovieCommentLike> stored) {
+        return writeBehind.change(userId, ENTRY, EntryType.FAVORITE, "owner", stored, next);
+    }
+
+    private void insertLike(String userId, boolean isLike) {
+        jdbc.update("INSERT INTO movie_comment_likes (user_id, movie_entry_id, entry_type, movie_owner_id, is_like, "
+                + "created_at) VALUES (?, ?, 'FAVORITE', 'owner', ?, ?)", userId, ENTRY, isLike, LocalDateTime.now());
+    }
+
+    private int likeRows() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM movie_comment_likes", Integer.class);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5s").isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.iridian.movie.social.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(1).toNanos();
+    private static final long SLOW = Duration.ofSeconds(5).toNanos();
+
+    // Window of 10, judged after 4 calls, trips at 50% failed or slow calls
+    private static CircuitBreaker breaker(Duration openDuration) {
+        return new CircuitBreaker("test", 10, 4, 50, Duration.ofSeconds(1), 50, openDuration);
+    }
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        for (int i = 0; i < 3; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onError(FAST);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void opensAtFailureRateAndRejects() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        breaker.onError(FAST);
+        assertThat(breaker.isClosed()).isTrue();
+        breaker.onError(FAST);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.getStats()).containsEntry("rejectedCalls", 2L).containsEntry("timesOpened", 1L);
+    }
+
+    @Test
+    void opensAtSlowCallRate() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(SLOW);
+        breaker.onSuccess(SLOW);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        for (int i = 0; i < 6; i++) {
+            breaker.onSuccess(FAST);
+        }
+        for (int i = 0; i < 3; i++) {
+            breaker.onError(FAST);
+            breaker.onSuccess(FAST);
+        }
+        assertThat(breaker.getStats()).containsEntry("bufferedCalls", 10).containsEntry("failedCalls", 3);
+        // Successes push the failures out of the window instead of diluting them forever
+        for (int i = 0; i < 20; i++) {
+            breaker.onSuccess(FAST);
+            assertThat(breaker.isClosed()).isTrue();
+        }
+        assertThat(breaker.getStats()).containsEntry("bufferedCalls", 10).containsEntry("failedCalls", 0);
+    }
+
+    @Test
+    void letsOneProbeThroughOnceOpenPeriodElapsed() throws InterruptedException {
+        CircuitBreaker breaker = tripped(Duration.ofMillis(50));
+        assertThat(breaker.tryAcquire()).isFalse();
+        Thread.sleep(80);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void callPermittedMatchesTryAcquireWithoutClaimingTheProbe() throws InterruptedException {
+        CircuitBreaker breaker = tripped(Duration.ofMillis(50));
+        assertThat(breaker.isCallPermitted()).isFalse();
+        Thread.sleep(80);
+
+        assertThat(breaker.isCallPermitted()).isTrue();
+        assertThat(breaker.isCallPermitted()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.isCallPermitted()).isFalse();
+        breaker.onSuccess(FAST);
+        assertThat(breaker.isCallPermitted()).isTrue();
+    }
+
+    @Test
+    void successfulProbeClosesWithAnEmptyWindow() {
+        CircuitBreaker breaker = tripped(Duration.ZERO);
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onSuccess(FAST);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.getStats()).containsEntry("bufferedCalls", 0).containsEntry("failedCalls", 0);
+        // The failures from before the trip no longer count
+        breaker.onError(FAST);
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        assertThat(breaker.isClosed()).isTrue();
+    }
+
+    @Test
+    void failedOrSlowProbeOpensAgain() {
+        CircuitBreaker failedProbe = tripped(Duration.ZERO);
+        assertThat(failedProbe.tryAcquire()).isTrue();
+        failedProbe.onError(FAST);
+        assertThat(failedProbe.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(failedProbe.getStats()).containsEntry("timesOpened", 2L);
+
+        CircuitBreaker slowProbe = tripped(Duration.ZERO);
+        assertThat(slowProbe.tryAcquire()).isTrue();
+        slowProbe.onSuccess(SLOW);
+        assertThat(slowProbe.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void cancelledProbeLetsTheNextOneThrough() {
+        CircuitBreaker breaker = tripped(Duration.ZERO);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+        breaker.onCancel();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void outcomesArrivingWhileOpenAreIgnored() {
+        CircuitBreaker breaker = tripped(Duration.ofMinutes(1));
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.getStats()).containsEntry("failedCalls", 4);
+    }
+
+    private static CircuitBreaker tripped(Duration openDuration) {
+        CircuitBreaker breaker = breaker(openDuration);
+        for (int i = 0; i < 4; i++) {
+            breaker.onError(FAST);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        return breaker;
+    }
+}
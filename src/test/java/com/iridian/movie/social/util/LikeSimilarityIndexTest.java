@@ -0,0 +1,169 @@
+package com.iridian.movie.social.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.iridian.movie.social.model.EntryType;
+
+class LikeSimilarityIndexTest {
+
+    private final LikeSimilarityIndex index = new LikeSimilarityIndex();
+
+    @Test
+    void ranksByCommonLikes() {
+        likes("me", 1, 2, 3, 4);
+        likes("three", 1, 2, 3, 10, 11, 12, 13);
+        likes("two", 1, 2);
+        likes("one", 4);
+        likes("none", 20, 21);
+
+        List<LikeSimilarityIndex.Match> similar = index.similarTo("me", 10, false);
+
+        assertThat(similar).extracting(LikeSimilarityIndex.Match::userId).containsExactly("three", "two", "one");
+        assertThat(similar).extracting(LikeSimilarityIndex.Match::commonLikes).containsExactly(3, 2, 1);
+        // |A ∩ B| / |A ∪ B|
+        assertThat(similar.get(0).jaccard()).isCloseTo(3.0 / 8, within(1e-9));
+        assertThat(similar.get(1).jaccard()).isCloseTo(2.0 / 4, within(1e-9));
+        assertThat(similar.get(2).jaccard()).isCloseTo(1.0 / 4, within(1e-9));
+    }
+
+    @Test
+    void ranksByJaccardWhenAsked() {
+        likes("me", 1, 2, 3, 4);
+        likes("three", 1, 2, 3, 10, 11, 12, 13);
+        likes("two", 1, 2);
+        likes("one", 4);
+
+        assertThat(index.similarTo("me", 10, true)).extracting(LikeSimilarityIndex.Match::userId)
+                .containsExactly("two", "three", "one");
+    }
+
+    @Test
+    void tiesOnOneMeasureAreBrokenByTheOther() {
+        likes("me", 1, 2);
+        likes("narrow", 1);
+        likes("broad", 2, 3, 4, 5);
+
+        assertThat(index.similarTo("me", 10, false)).extracting(LikeSimilarityIndex.Match::userId)
+                .containsExactly("narrow", "broad");
+    }
+
+    @Test
+    void limitKeepsTheBest() {
+        likes("me", 1, 2, 3, 4, 5);
+        for (int shared = 1; shared <= 5; shared++) {
+            for (int entry = 1; entry <= shared; entry++) {
+                index.set("user-" + shared, EntryType.FAVORITE, entry, true);
+            }
+        }
+
+        assertThat(index.similarTo("me", 2, false)).extracting(LikeSimilarityIndex.Match::userId)
+                .containsExactly("user-5", "user-4");
+        assertThat(index.similarTo("me", 0, false)).isEmpty();
+        assertThat(index.similarTo("nobody", 10, false)).isEmpty();
+    }
+
+    @Test
+    void entryTypesAreSeparate() {
+        index.set("me", EntryType.FAVORITE, 1, true);
+        index.set("other", EntryType.WATCHED, 1, true);
+
+        assertThat(index.similarTo("me", 10, false)).isEmpty();
+    }
+
+    @Test
+    void unlikeAndRemovedEntriesStopCounting() {
+        likes("me", 1, 2, 3);
+        likes("other", 1, 2, 3);
+
+        index.set("other", EntryType.FAVORITE, 1, false);
+        index.set("other", EntryType.FAVORITE, 1, false);
+        index.removeEntry(EntryType.FAVORITE, 2);
+
+        List<LikeSimilarityIndex.Match> similar = index.similarTo("me", 10, false);
+        assertThat(similar).singleElement().satisfies(match -> {
+            assertThat(match.commonLikes()).isEqualTo(1);
+            assertThat(match.jaccard()).isCloseTo(1.0 / 2, within(1e-9));
+        });
+        assertThat(index.getStats()).containsEntry("likes", 3L);
+    }
+
+    @Test
+    void repeatedLikesAndUnknownUnlikesAreNoOps() {
+        likes("me", 1);
+        likes("me", 1);
+        index.set("stranger", EntryType.FAVORITE, 1, false);
+        index.set("me", EntryType.FAVORITE, 99, false);
+
+        assertThat(index.getStats()).containsEntry("likes", 1L).containsEntry("users", 1).containsEntry("entries", 1);
+    }
+
+    @Test
+    void bulkLoadMatchesIncrementalChanges() {
+        LikeSimilarityIndex loaded = new LikeSimilarityIndex();
+        Random random = new Random(25);
+        for (int i = 0; i < 2_000; i++) {
+            String userId = "user-" + random.nextInt(50);
+            long entryId = random.nextInt(100);
+            index.set(userId, EntryType.FAVORITE, entryId, true);
+            loaded.append(userId, EntryType.FAVORITE, entryId);
+        }
+        loaded.compact();
+
+        assertThat(loaded.getStats()).isEqualTo(index.getStats());
+        for (int u = 0; u < 50; u++) {
+            assertThat(loaded.similarTo("user-" + u, 50, false)).isEqualTo(index.similarTo("user-" + u, 50, false));
+        }
+    }
+
+    // The posting-list walk has to agree with intersecting every pair of like sets
+    @Test
+    void overlapMatchesSetIntersection() {
+        Random random = new Random(7);
+        Map<String, Set<Long>> likes = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            String userId = "user-" + random.nextInt(80);
+            long entryId = random.nextInt(200);
+            boolean liked = random.nextInt(4) != 0;
+            index.set(userId, EntryType.FAVORITE, entryId, liked);
+            if (liked) {
+                likes.computeIfAbsent(userId, k -> new HashSet<>()).add(entryId);
+            } else if (likes.containsKey(userId)) {
+                likes.get(userId).remove(entryId);
+            }
+        }
+
+        for (Map.Entry<String, Set<Long>> me : likes.entrySet()) {
+            Map<String, Integer> expected = new HashMap<>();
+            for (Map.Entry<String, Set<Long>> other : likes.entrySet()) {
+                Set<Long> common = new HashSet<>(me.getValue());
+                common.retainAll(other.getValue());
+                if (!other.getKey().equals(me.getKey()) && !common.isEmpty()) {
+                    expected.put(other.getKey(), common.size());
+                }
+            }
+
+            List<LikeSimilarityIndex.Match> similar = index.similarTo(me.getKey(), likes.size(), false);
+            Map<String, Integer> actual = new HashMap<>();
+            similar.forEach(match -> actual.put(match.userId(), match.commonLikes()));
+            assertThat(actual).isEqualTo(expected);
+            assertThat(similar).extracting(LikeSimilarityIndex.Match::commonLikes)
+                    .isSortedAccordingTo((a, b) -> Integer.compare(b, a));
+        }
+    }
+
+    private void likes(String userId, long... entryIds) {
+        for (long entryId : entryIds) {
+            index.set(userId, EntryType.FAVORITE, entryId, true);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.iridian.movie.social.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String> flight = new SingleFlight<>();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    @Test
+    void concurrentCallersShareOneUpstreamCall() {
+        Sinks.One<String> upstream = Sinks.one();
+        List<CompletableFuture<String>> callers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            callers.add(flight.execute("movie/550", () -> counted(upstream.asMono())).toFuture());
+        }
+        assertThat(flight.getInFlight()).isEqualTo(1);
+        assertThat(callers).noneMatch(CompletableFuture::isDone);
+
+        upstream.tryEmitValue("Fight Club");
+
+        assertThat(callers).allSatisfy(caller -> assertThat(caller.join()).isEqualTo("Fight Club"));
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(flight.getStats()).containsEntry("upstreamCalls", 1L).containsEntry("coalescedWaiters", 4L);
+        assertThat(flight.getInFlight()).isZero();
+    }
+
+    @Test
+    void callsAfterCompletionGoUpstreamAgain() {
+        assertThat(flight.execute("movie/550", () -> counted(Mono.just("first"))).block()).isEqualTo("first");
+        assertThat(flight.execute("movie/550", () -> counted(Mono.just("second"))).block()).isEqualTo("second");
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(flight.getStats()).containsEntry("coalescedWaiters", 0L);
+    }
+
+    @Test
+    void differentKeysAreNotCoalesced() {
+        Sinks.One<String> first = Sinks.one();
+        Sinks.One<String> second = Sinks.one();
+        CompletableFuture<String> a = flight.execute("movie/550", () -> counted(first.asMono())).toFuture();
+        CompletableFuture<String> b = flight.execute("movie/551", () -> counted(second.asMono())).toFuture();
+        assertThat(flight.getInFlight()).isEqualTo(2);
+
+        second.tryEmitValue("Fight Club 2");
+        assertThat(b.join()).isEqualTo("Fight Club 2");
+        assertThat(a).isNotDone();
+        first.tryEmitValue("Fight Club");
+        assertThat(a.join()).isEqualTo("Fight Club");
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void nothingStartsUntilSubscribed() {
+        Mono<String> call = flight.execute("movie/550", () -> counted(Mono.just("Fight Club")));
+        assertThat(upstreamCalls).hasValue(0);
+        assertThat(flight.getInFlight()).isZero();
+        assertThat(call.block()).isEqualTo("Fight Club");
+    }
+
+    @Test
+    void errorReachesEveryWaiterAndIsNotKept() {
+        Sinks.One<String> upstream = Sinks.one();
+        List<CompletableFuture<String>> callers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            callers.add(flight.execute("movie/550", () -> counted(upstream.asMono())).toFuture());
+        }
+
+        upstream.tryEmitError(new IllegalStateException("TMDB unavailable"));
+
+        assertThat(callers).allSatisfy(caller -> assertThatThrownBy(caller::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasRootCauseMessage("TMDB unavailable"));
+        assertThat(flight.getInFlight()).isZero();
+        assertThat(flight.execute("movie/550", () -> counted(Mono.just("Fight Club"))).block()).isEqualTo("Fight Club");
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void supplierThatThrowsFailsTheCallAndIsNotKept() {
+        assertThatThrownBy(() -> flight.execute("movie/550", () -> {
+            upstreamCalls.incrementAndGet();
+            throw new IllegalArgumentException("bad request");
+        }).block()).isInstanceOf(IllegalArgumentException.class).hasMessage("bad request");
+
+        assertThat(flight.getInFlight()).isZero();
+        assertThat(flight.execute("movie/550", () -> counted(Mono.just("Fight Club"))).block()).isEqualTo("Fight Club");
+    }
+
+    @Test
+    void emptyResultIsSharedToo() {
+        Sinks.One<String> upstream = Sinks.one();
+        CompletableFuture<String> a = flight.execute("movie/0", () -> counted(upstream.asMono())).toFuture();
+        CompletableFuture<String> b = flight.execute("movie/0", () -> counted(upstream.asMono())).toFuture();
+
+        upstream.tryEmitEmpty();
+
+        assertThat(a.join()).isNull();
+        assertThat(b.join()).isNull();
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(flight.getInFlight()).isZero();
+    }
+
+    private Mono<String> counted(Mono<String> call) {
+        upstreamCalls.incrementAndGet();
+        return call;
+    }
+}
@@ -0,0 +1,88 @@
+package com.iridian.movie.social.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+class SortedIntSetTest {
+
+    @Test
+    void addKeepsMembersSortedAndDistinct() {
+        SortedIntSet set = new SortedIntSet();
+        assertThat(set.add(5)).isTrue();
+        assertThat(set.add(1)).isTrue();
+        assertThat(set.add(9)).isTrue();
+        assertThat(set.add(5)).isFalse();
+
+        assertThat(members(set)).containsExactly(1, 5, 9);
+        assertThat(set.contains(5)).isTrue();
+        assertThat(set.contains(4)).isFalse();
+    }
+
+    @Test
+    void removeClosesTheGap() {
+        SortedIntSet set = new SortedIntSet();
+        for (int value : new int[]{3, 1, 4, 15, 9, 2, 6}) {
+            set.add(value);
+        }
+        assertThat(set.remove(4)).isTrue();
+        assertThat(set.remove(4)).isFalse();
+        assertThat(set.remove(100)).isFalse();
+
+        assertThat(members(set)).containsExactly(1, 2, 3, 6, 9, 15);
+    }
+
+    @Test
+    void compactSortsAndDropsDuplicateAppends() {
+        SortedIntSet set = new SortedIntSet();
+        for (int value : new int[]{7, 3, 7, 1, 3, 3, 0}) {
+            set.append(value);
+        }
+        set.compact();
+
+        assertThat(members(set)).containsExactly(0, 1, 3, 7);
+        assertThat(set.add(2)).isTrue();
+        assertThat(set.add(7)).isFalse();
+        assertThat(members(set)).containsExactly(0, 1, 2, 3, 7);
+    }
+
+    @Test
+    void compactOfAnEmptySetStaysUsable() {
+        SortedIntSet set = new SortedIntSet();
+        set.compact();
+        assertThat(set.size()).isZero();
+        assertThat(set.contains(0)).isFalse();
+        assertThat(set.add(0)).isTrue();
+
+        set.clear();
+        assertThat(set.size()).isZero();
+        assertThat(set.remove(0)).isFalse();
+    }
+
+    @Test
+    void matchesATreeSetUnderRandomChanges() {
+        Random random = new Random(25);
+        SortedIntSet set = new SortedIntSet();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                assertThat(set.remove(value)).isEqualTo(expected.remove(value));
+            } else {
+                assertThat(set.add(value)).isEqualTo(expected.add(value));
+            }
+        }
+        assertThat(members(set)).containsExactlyElementsOf(expected);
+    }
+
+    private static Integer[] members(SortedIntSet set) {
+        Integer[] members = new Integer[set.size()];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = set.get(i);
+        }
+        return members;
+    }
+}
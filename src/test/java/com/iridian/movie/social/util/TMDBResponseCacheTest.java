@@ -0,0 +1,186 @@
+package com.iridian.movie.social.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+class TMDBResponseCacheTest {
+
+    private static final Duration HOUR = Duration.ofHours(1);
+    // A one-letter key and a 100-byte body cost 100 + 2 + 128 bytes of the budget
+    private static final long ENTRY_BYTES = 230;
+
+    private static TMDBResponseCache cache(long maxBytes, Duration staleRetention) {
+        return new TMDBResponseCache(DataSize.ofBytes(maxBytes), staleRetention, DataSize.ofMegabytes(1), true);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedPastTheByteBudget() {
+        TMDBResponseCache cache = cache(3 * ENTRY_BYTES, HOUR);
+        cache.put("a", body(100), HOUR);
+        cache.put("b", body(100), HOUR);
+        cache.put("c", body(100), HOUR);
+        assertThat(cache.get("a")).isNotNull();
+
+        cache.put("d", body(100), HOUR);
+
+        assertThat(cache.peek("b")).isNull();
+        assertThat(cache.peek("a")).isNotNull();
+        assertThat(cache.peek("c")).isNotNull();
+        assertThat(cache.peek("d")).isNotNull();
+        assertThat(cache.getStats()).containsEntry("entries", 3).containsEntry("bytes", 3 * ENTRY_BYTES)
+                .containsEntry("evictions", 1L);
+    }
+
+    @Test
+    void largeEntryEvictsAsManyAsItNeeds() {
+        TMDBResponseCache cache = cache(3 * ENTRY_BYTES, HOUR);
+        cache.put("a", body(100), HOUR);
+        cache.put("b", body(100), HOUR);
+        cache.put("c", body(100), HOUR);
+
+        cache.put("d", body(300), HOUR);
+
+        assertThat(cache.peek("a")).isNull();
+        assertThat(cache.peek("b")).isNull();
+        assertThat(cache.peek("c")).isNotNull();
+        assertThat(cache.getStats()).containsEntry("entries", 2).containsEntry("bytes", ENTRY_BYTES + 430)
+                .containsEntry("evictions", 2L);
+    }
+
+    @Test
+    void entryLargerThanTheBudgetIsReturnedButNotKept() {
+        TMDBResponseCache cache = cache(3 * ENTRY_BYTES, HOUR);
+        cache.put("a", body(100), HOUR);
+
+        TMDBResponseCache.Entry big = cache.put("big", body(1000), HOUR);
+
+        assertThat(big.getBody()).hasSize(1000);
+        assertThat(cache.peek("big")).isNull();
+        assertThat(cache.peek("a")).isNotNull();
+        assertThat(cache.getStats()).containsEntry("evictions", 0L);
+    }
+
+    @Test
+    void replacingAnEntryReplacesItsBytes() {
+        TMDBResponseCache cache = cache(3 * ENTRY_BYTES, HOUR);
+        cache.put("a", body(100), HOUR);
+        cache.put("a", body(50), HOUR);
+
+        assertThat(cache.get("a").getBody()).hasSize(50);
+        assertThat(cache.getStats()).containsEntry("entries", 1).containsEntry("bytes", ENTRY_BYTES - 50)
+                .containsEntry("uncompressedBytes", 50L);
+    }
+
+    @Test
+    void expiredEntryMissesButIsKeptAsStale() throws InterruptedException {
+        TMDBResponseCache cache = cache(3 * ENTRY_BYTES, HOUR);
+        cache.put("a", body(100), Duration.ofMillis(50));
+        assertThat(cache.get("a")).isNotNull();
+        Thread.sleep(80);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.peek("a")).isNull();
+        TMDBResponseCache.Entry stale = cache.getStale("a");
+        assertThat(stale).isNotNull();
+        assertThat(stale.isFresh(System.currentTimeMillis())).isFalse();
+        assertThat(cache.getStats()).containsEntry("hits", 1L).containsEntry("misses", 2L)
+                .containsEntry("expirations", 1L).containsEntry("entries", 1);
+    }
+
+    @Test
+    void staleEntryIsDroppedOnceRetentionRunsOut() {
+        TMDBResponseCache cache = cache(3 * ENTRY_BYTES, Duration.ofMillis(500));
+        // Expired a second ago, so already past half a second of retention
+        cache.put("a", body(100), Duration.ofSeconds(-1));
+        cache.put("b", body(100), Duration.ofSeconds(-1));
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.getStale("b")).isNull();
+        assertThat(cache.getStats()).containsEntry("entries", 0).containsEntry("bytes", 0L);
+    }
+
+    @Test
+    void staleEntriesStillCountAgainstTheBudget() {
+        TMDBResponseCache cache = cache(3 * ENTRY_BYTES, HOUR);
+        cache.put("a", body(100), Duration.ZERO);
+        cache.put("b", body(100), HOUR);
+        cache.put("c", body(100), HOUR);
+        cache.put("d", body(100), HOUR);
+
+        assertThat(cache.getStale("a")).isNull();
+        assertThat(cache.getStats()).containsEntry("entries", 3);
+    }
+
+    @Test
+    void derivedEntryExpiresWithItsSource() {
+        TMDBResponseCache cache = cache(3 * ENTRY_BYTES, HOUR);
+        TMDBResponseCache.Entry source = cache.put("a", body(100), Duration.ofMinutes(5));
+
+        TMDBResponseCache.Entry derived = cache.putDerived("a?fields=id", body(20), source);
+
+        assertThat(derived.getExpiresAt()).isEqualTo(source.getExpiresAt());
+        assertThat(derived.getStoredAt()).isEqualTo(source.getStoredAt());
+        assertThat(cache.get("a?fields=id")).isSameAs(derived);
+    }
+
+    @Test
+    void sameBodyGetsTheSameETag() {
+        TMDBResponseCache cache = cache(3 * ENTRY_BYTES, HOUR);
+        assertThat(cache.put("a", body(100), HOUR).getETag()).isEqualTo(cache.put("b", body(100), HOUR).getETag());
+        assertThat(cache.put("c", body(99), HOUR).getETag()).isNotEqualTo(cache.peek("a").getETag());
+    }
+
+    @Test
+    void largeBodiesAreKeptGzippedWithTheirOwnETag() {
+        TMDBResponseCache cache = new TMDBResponseCache(DataSize.ofMegabytes(1), HOUR, DataSize.ofKilobytes(1), true);
+        byte[] large = "{\"title\":\"Fight Club\"}".repeat(500).getBytes(StandardCharsets.UTF_8);
+        byte[] small = body(100);
+
+        TMDBResponseCache.Entry compressed = cache.put("large", large, HOUR);
+        TMDBResponseCache.Entry plain = cache.put("small", small, HOUR);
+
+        assertThat(compressed.isCompressed()).isTrue();
+        assertThat(compressed.getGzipBody().length).isLessThan(large.length / 10);
+        assertThat(compressed.getBody()).isEqualTo(large);
+        assertThat(compressed.getGzipETag()).isNotEqualTo(compressed.getETag()).endsWith("-gzip\"");
+        assertThat(plain.isCompressed()).isFalse();
+        assertThat(cache.getStats()).containsEntry("uncompressedBytes", (long) large.length + small.length);
+        assertThat((Long) cache.getStats().get("bytes")).isLessThan(large.length);
+    }
+
+    @Test
+    void disabledCacheBuildsEntriesWithoutKeepingThem() {
+        TMDBResponseCache cache = new TMDBResponseCache(DataSize.ofMegabytes(1), HOUR, DataSize.ofKilobytes(1), false);
+
+        TMDBResponseCache.Entry entry = cache.put("a", body(100), HOUR);
+
+        assertThat(entry.getETag()).isNotNull();
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.getStale("a")).isNull();
+    }
+
+    @Test
+    void keySortsParameters() {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("page", 2);
+        params.put("language", "en-US");
+
+        assertThat(TMDBResponseCache.key("/discover/movie", params)).isEqualTo("/discover/movie?language=en-US&page=2");
+        assertThat(TMDBResponseCache.key("/movie/550", Map.of())).isEqualTo("/movie/550");
+    }
+
+    private static byte[] body(int length) {
+        byte[] body = new byte[length];
+        Arrays.fill(body, (byte) 'x');
+        return body;
+    }
+}
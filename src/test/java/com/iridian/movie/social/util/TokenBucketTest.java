@@ -0,0 +1,146 @@
+package com.iridian.movie.social.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+// Like Guava's RateLimiter, the call that finds the bucket empty still goes through
+// and the one after it waits for the permit it borrowed
+class TokenBucketTest {
+
+    private static final Mono<String> CALL = Mono.just("ok");
+
+    @BeforeAll
+    static void warmUpReactor() {
+        Mono.delay(Duration.ofMillis(1)).block();
+    }
+
+    @Test
+    void burstIsGrantedWithoutWaiting() {
+        TokenBucket bucket = new TokenBucket("test", 10, 3, Duration.ofSeconds(1), 10);
+        for (int i = 0; i < 4; i++) {
+            assertThat(bucket.acquire(CALL).block()).isEqualTo("ok");
+        }
+        assertThat(bucket.getStats()).containsEntry("granted", 4L).containsEntry("delayed", 0L);
+    }
+
+    @Test
+    void callPastTheBurstWaitsOneInterval() {
+        TokenBucket bucket = new TokenBucket("test", 10, 1, Duration.ofSeconds(1), 10);
+        bucket.acquire(CALL).block();
+        bucket.acquire(CALL).block();
+
+        long started = System.nanoTime();
+        assertThat(bucket.acquire(CALL).block()).isEqualTo("ok");
+        long waitedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        assertThat(waitedMillis).isBetween(60L, 500L);
+        assertThat(bucket.getStats()).containsEntry("delayed", 1L);
+    }
+
+    @Test
+    void permitsRefillUpToTheBurst() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket("test", 20, 2, Duration.ofSeconds(1), 10);
+        for (int i = 0; i < 3; i++) {
+            bucket.acquire(CALL).block();
+        }
+        // Enough for several permits, but only two fit in the bucket
+        Thread.sleep(250);
+
+        for (int i = 0; i < 3; i++) {
+            bucket.acquire(CALL).block();
+        }
+        assertThat(bucket.getStats()).containsEntry("delayed", 0L);
+        bucket.acquire(CALL).block();
+        assertThat(bucket.getStats()).containsEntry("delayed", 1L);
+    }
+
+    @Test
+    void rejectsPastTheWaitBudgetWithRetryAfter() {
+        TokenBucket bucket = new TokenBucket("test", 1, 1, Duration.ofMillis(100), 10);
+        bucket.acquire(CALL).block();
+        bucket.acquire(CALL).block();
+
+        assertThatThrownBy(() -> bucket.acquire(CALL).block())
+                .isInstanceOfSatisfying(TokenBucket.RejectedException.class, e -> assertThat(e.getRetryAfter())
+                        .isGreaterThan(Duration.ofMillis(500))
+                        .isLessThanOrEqualTo(Duration.ofSeconds(1)));
+        assertThat(bucket.getStats()).containsEntry("rejected", 1L).containsEntry("granted", 2L);
+    }
+
+    @Test
+    void rejectedCallsDoNotReserveAPermit() {
+        TokenBucket bucket = new TokenBucket("test", 1, 1, Duration.ofMillis(100), 10);
+        bucket.acquire(CALL).block();
+        bucket.acquire(CALL).block();
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> bucket.acquire(CALL).block())
+                    .isInstanceOfSatisfying(TokenBucket.RejectedException.class, e -> assertThat(e.getRetryAfter())
+                            .isLessThanOrEqualTo(Duration.ofSeconds(1)));
+        }
+        assertThat(bucket.getStats()).containsEntry("rejected", 5L);
+    }
+
+    @Test
+    void rejectsWhenTheQueueIsFull() {
+        TokenBucket bucket = new TokenBucket("test", 2, 1, Duration.ofSeconds(2), 1);
+        bucket.acquire(CALL).block();
+        bucket.acquire(CALL).block();
+        Disposable queued = bucket.acquire(CALL).subscribe();
+        try {
+            assertThat(bucket.getStats()).containsEntry("queueDepth", 1);
+            // Would have waited two intervals: one for the queued call's permit, one for its own
+            assertThatThrownBy(() -> bucket.acquire(CALL).block())
+                    .isInstanceOfSatisfying(TokenBucket.RejectedException.class, e -> assertThat(e.getRetryAfter())
+                            .isGreaterThan(Duration.ofMillis(500))
+                            .isLessThanOrEqualTo(Duration.ofSeconds(1)));
+        } finally {
+            queued.dispose();
+        }
+        assertThat(bucket.getStats()).containsEntry("queueDepth", 0);
+    }
+
+    @Test
+    void pauseHoldsEveryPermitAndSetsRetryAfter() {
+        TokenBucket bucket = new TokenBucket("test", 100, 10, Duration.ofMillis(100), 10);
+        bucket.pauseFor(Duration.ofSeconds(2));
+
+        assertThatThrownBy(() -> bucket.acquire(CALL).block())
+                .isInstanceOfSatisfying(TokenBucket.RejectedException.class, e -> assertThat(e.getRetryAfter())
+                        .isGreaterThan(Duration.ofMillis(1500))
+                        .isLessThanOrEqualTo(Duration.ofSeconds(2)));
+        assertThat(bucket.getStats()).containsEntry("retryAfterPauses", 1L);
+    }
+
+    @Test
+    void shortPauseIsWaitedOut() {
+        TokenBucket bucket = new TokenBucket("test", 10, 5, Duration.ofSeconds(1), 10);
+        bucket.pauseFor(Duration.ofMillis(150));
+
+        long started = System.nanoTime();
+        bucket.acquire(CALL).block();
+        assertThat((System.nanoTime() - started) / 1_000_000).isGreaterThanOrEqualTo(100L);
+        assertThat(bucket.getStats()).containsEntry("delayed", 1L);
+    }
+
+    @Test
+    void burstRefillsFromTheEndOfThePause() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket("test", 10, 5, Duration.ofSeconds(1), 10);
+        Thread.sleep(100);
+        bucket.pauseFor(Duration.ofMillis(100));
+        Thread.sleep(150);
+
+        // Half a permit or so has come back since the pause ended, not the whole burst
+        for (int i = 0; i < 3; i++) {
+            bucket.acquire(CALL).block();
+        }
+        assertThat((Long) bucket.getStats().get("delayed")).isGreaterThanOrEqualTo(1L);
+    }
+}